@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A configuration with a number of identical groups, <code>bench</code> followed by the group number, and the
+ * configuration interfaces and targets shared by the benchmarks.
+ */
+public class BenchmarkConfiguration extends Configuration
+{
+    static final String GROUP = "bench0";
+
+    /**
+     * The shape of a configuration value.
+     */
+    public enum Shape
+    {
+        SCALAR( "scalar" )
+        {
+            @Override
+            String value( int size, int variant )
+            {
+                return Integer.toString( 4711 + variant );
+            }
+
+            @Override
+            Object target( MutationPolicy policy )
+            {
+                return new ScalarTarget( policy );
+            }
+        },
+        LONG_LIST( "list" )
+        {
+            @Override
+            String value( int size, int variant )
+            {
+                StringBuilder value = new StringBuilder();
+                for ( int i = 0; i < size; i++ )
+                {
+                    if ( i > 0 ) value.append( ',' );
+                    value.append( 1000000L * i + variant );
+                }
+                return value.toString();
+            }
+
+            @Override
+            Object target( MutationPolicy policy )
+            {
+                return new ListTarget( policy );
+            }
+        },
+        HOST_AND_PORT( "address" )
+        {
+            @Override
+            String value( int size, int variant )
+            {
+                return "db" + variant + ".example.com:" + ( 7474 + variant );
+            }
+
+            @Override
+            Object target( MutationPolicy policy )
+            {
+                return new AddressTarget( policy );
+            }
+        };
+        final String name;
+
+        Shape( String name )
+        {
+            this.name = name;
+        }
+
+        /**
+         * @param size the number of elements, for list values.
+         * @param variant distinguishes the values that are alternated between when changing the configuration.
+         */
+        abstract String value( int size, int variant );
+
+        abstract Object target( MutationPolicy policy );
+    }
+
+    private final int size;
+
+    BenchmarkConfiguration( int size )
+    {
+        this.size = size;
+    }
+
+    @Override
+    protected void initialize( String group, Map<String, String> config )
+    {
+        for ( Shape shape : Shape.values() )
+        {
+            config.put( shape.name, shape.value( size, 0 ) );
+        }
+    }
+
+    @Override
+    protected void restart()
+    {
+        throw new IllegalStateException( "The benchmark parameters do not require restarts." );
+    }
+
+    /**
+     * Changes the configuration.
+     */
+    static class Updater extends ConfigurationManager
+    {
+        Updater( Configuration config )
+        {
+            super( config );
+        }
+
+        void set( String group, String name, String value ) throws Exception
+        {
+            Map<String, String> update = new HashMap<String, String>();
+            update.put( name, value );
+            update( group, update ).get();
+        }
+    }
+
+    @Parameter( group = GROUP )
+    public interface Scalar
+    {
+        MutationPolicy setScalar( long value );
+    }
+
+    @Parameter( group = GROUP )
+    public interface LongList
+    {
+        MutationPolicy setList( long[] values );
+    }
+
+    @Parameter( group = GROUP )
+    public interface Address
+    {
+        MutationPolicy setAddress( String host, int port );
+    }
+
+    @Parameter( group = GROUP )
+    public interface Getters
+    {
+        long scalar();
+
+        long[] list();
+
+        String address();
+    }
+
+    static class ScalarTarget implements Scalar
+    {
+        private final MutationPolicy policy;
+        long value;
+
+        ScalarTarget( MutationPolicy policy )
+        {
+            this.policy = policy;
+        }
+
+        @Override
+        public MutationPolicy setScalar( long value )
+        {
+            this.value = value;
+            return policy;
+        }
+    }
+
+    static class ListTarget implements LongList
+    {
+        private final MutationPolicy policy;
+        long[] values;
+
+        ListTarget( MutationPolicy policy )
+        {
+            this.policy = policy;
+        }
+
+        @Override
+        public MutationPolicy setList( long[] values )
+        {
+            this.values = values;
+            return policy;
+        }
+    }
+
+    static class AddressTarget implements Address
+    {
+        private final MutationPolicy policy;
+        String host;
+        int port;
+
+        AddressTarget( MutationPolicy policy )
+        {
+            this.policy = policy;
+        }
+
+        @Override
+        public MutationPolicy setAddress( String host, int port )
+        {
+            this.host = host;
+            this.port = port;
+            return policy;
+        }
+    }
+}
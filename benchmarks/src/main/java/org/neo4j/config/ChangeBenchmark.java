@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures changing a value: publishing a new snapshot, converting the new value and updating every registered
+ * listener.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ChangeBenchmark
+{
+    @State( Scope.Benchmark )
+    public static class Config
+    {
+        @Param( { "1", "100", "10000" } )
+        int listeners;
+        @Param( { "SCALAR", "LONG_LIST", "HOST_AND_PORT" } )
+        BenchmarkConfiguration.Shape shape;
+        @Param( { "1000" } )
+        int size;
+        Configuration config;
+        BenchmarkConfiguration.Updater updater;
+        /**
+         * Keeps the targets alive, the listeners only reference them weakly.
+         */
+        Object[] targets;
+        String[] values;
+
+        @Setup
+        public void setup()
+        {
+            config = new BenchmarkConfiguration( size );
+            targets = new Object[listeners];
+            for ( int i = 0; i < listeners; i++ )
+            {
+                targets[i] = config.configure( shape.target( MutationPolicy.MUTABLE ) );
+            }
+            updater = new BenchmarkConfiguration.Updater( config );
+            values = new String[] { shape.value( size, 1 ), shape.value( size, 0 ) };
+        }
+    }
+
+    @State( Scope.Thread )
+    public static class Variant
+    {
+        int next;
+    }
+
+    @Benchmark
+    public void change( Config config, Variant variant ) throws Exception
+    {
+        variant.next ^= 1;
+        config.updater.set( BenchmarkConfiguration.GROUP, config.shape.name, config.values[variant.next] );
+    }
+}
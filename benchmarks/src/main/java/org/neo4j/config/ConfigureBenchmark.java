@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Configuration#configure(Object)}: resolving, converting and invoking the configuration methods of
+ * a target, and for mutable targets also registering and removing the change listeners.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ConfigureBenchmark
+{
+    @State( Scope.Benchmark )
+    public static class Config
+    {
+        @Param( { "SCALAR", "LONG_LIST", "HOST_AND_PORT" } )
+        BenchmarkConfiguration.Shape shape;
+        @Param( { "1000" } )
+        int size;
+        Configuration config;
+
+        @Setup
+        public void setup()
+        {
+            config = new BenchmarkConfiguration( size );
+        }
+    }
+
+    @State( Scope.Thread )
+    public static class Target
+    {
+        @Param( { "IMMUTABLE", "MUTABLE" } )
+        MutationPolicy policy;
+        Object target;
+
+        @Setup
+        public void setup( Config config )
+        {
+            target = config.shape.target( policy );
+        }
+    }
+
+    @Benchmark
+    public Object configure( Config config, Target target )
+    {
+        Object configured = config.config.configure( target.target );
+        if ( target.policy == MutationPolicy.MUTABLE ) config.config.unconfigure( configured );
+        return configured;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link SimpleParameterType} conversions, without the memoization of the configurators, as when a
+ * value is changed.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ConversionBenchmark
+{
+    public enum Target
+    {
+        LONG( SimpleParameterType.NUMBER, "4711", long.class ),
+        HEX_INT( SimpleParameterType.HEX, "0x7fff", int.class ),
+        BOXED_LONG( SimpleParameterType.NUMBER, "4711", Long.class ),
+        LONG_ARRAY( SimpleParameterType.NUMBER, null, long[].class ),
+        BOXED_ARRAY( SimpleParameterType.NUMBER, null, Long[].class ),
+        LONG_LIST( SimpleParameterType.NUMBER, null, List.class ),
+        LAZY_LIST( SimpleParameterType.NUMBER, null, List.class ),
+        HOST_AND_PORT( SimpleParameterType.HOST_AND_PORT, "db.example.com:7474", String.class, int.class );
+        final SimpleParameterType type;
+        final String input;
+        final Class<?>[] params;
+
+        Target( SimpleParameterType type, String input, Class<?>... params )
+        {
+            this.type = type;
+            this.input = input;
+            this.params = params;
+        }
+    }
+
+    @Param( { "LONG", "HEX_INT", "BOXED_LONG", "LONG_ARRAY", "BOXED_ARRAY", "LONG_LIST", "LAZY_LIST",
+            "HOST_AND_PORT" } )
+    Target target;
+    @Param( { "1000" } )
+    int size;
+    String input;
+    SimpleParameterType.Conversion conversion;
+    SimpleParameterType.PrimitiveConversion primitive;
+
+    @Setup
+    public void setup()
+    {
+        input = target.input != null ? target.input : BenchmarkConfiguration.Shape.LONG_LIST.value( size, 0 );
+        conversion = target.type.conversionFor( target.params );
+        if ( target == Target.LAZY_LIST ) conversion = SimpleParameterType.lazy( conversion, target.params );
+        primitive = SimpleParameterType.primitiveConversion( conversion, target.params );
+    }
+
+    @Benchmark
+    public Object[] convert()
+    {
+        return conversion.performOn( input, target.params );
+    }
+
+    /**
+     * The unboxed conversion, only differs from {@link #convert()} for primitive scalars.
+     */
+    @Benchmark
+    public long convertPrimitive()
+    {
+        if ( primitive == null ) return conversion.performOn( input, target.params ).length;
+        return primitive.performOn( input );
+    }
+}
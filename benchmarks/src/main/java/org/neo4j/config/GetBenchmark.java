@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading raw values with {@link Configuration#get(String, String)} across a number of groups, and reading
+ * converted values through a {@link Configuration#bind(Class) bound} getter interface.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class GetBenchmark
+{
+    @State( Scope.Benchmark )
+    public static class Config
+    {
+        @Param( { "1", "16", "256" } )
+        int groups;
+        @Param( { "SCALAR", "LONG_LIST", "HOST_AND_PORT" } )
+        BenchmarkConfiguration.Shape shape;
+        Configuration config;
+        String[] names;
+        BenchmarkConfiguration.Getters bound;
+
+        @Setup
+        public void setup()
+        {
+            config = new BenchmarkConfiguration( 1000 );
+            names = new String[groups];
+            for ( int i = 0; i < groups; i++ )
+            {
+                names[i] = "bench" + i;
+                config.get( names[i], shape.name );
+            }
+            bound = config.bind( BenchmarkConfiguration.Getters.class );
+        }
+    }
+
+    @State( Scope.Thread )
+    public static class Cursor
+    {
+        int next;
+    }
+
+    @Benchmark
+    public String get( Config config, Cursor cursor )
+    {
+        String[] names = config.names;
+        int group = cursor.next++;
+        if ( cursor.next == names.length ) cursor.next = 0;
+        return config.config.get( names[group], config.shape.name );
+    }
+
+    @Benchmark
+    public long bound( Config config )
+    {
+        return config.bound.scalar();
+    }
+}
@@ -19,29 +19,441 @@
  */
 package org.neo4j.config;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import org.neo4j.config.SimpleParameterType.Conversion;
 
 public abstract class Configuration
 {
+    /**
+     * The initial values of all groups, or <code>null</code> if each group is {@link #initialize(String, Map)
+     * initialized} separately.
+     */
+    private final Map<String, Map<String, String>> index;
+    /**
+     * The metrics of this configuration, or <code>null</code> if {@link ConfigurationMetrics metrics} are disabled.
+     */
+    private final ConfigurationMetrics metrics = ConfigurationMetrics.ENABLED ? ConfigurationMetrics.register( this )
+                                                                              : null;
+    /**
+     * The configurators whose conversions are counted, or <code>null</code> if metrics are disabled. Kept here
+     * rather than in the metrics, so that the registered metrics do not keep the configured classes reachable.
+     */
+    private final Queue<Configurator> counted = ConfigurationMetrics.ENABLED ? new ConcurrentLinkedQueue<Configurator>()
+                                                                             : null;
+
+    /**
+     * Create a configuration that {@link #initialize(String, Map) initializes} each group separately, the first
+     * time it is used.
+     */
+    protected Configuration()
+    {
+        this.index = null;
+    }
+
+    /**
+     * Create a configuration that loads the initial values of all groups from a source, in one pass.
+     *
+     * @param source the source to load the configuration from.
+     */
+    protected Configuration( ConfigurationSource source )
+    {
+        Map<String, Map<String, String>> index = new HashMap<String, Map<String, String>>();
+        for ( Map.Entry<String, Map<String, String>> group : source.load( this ).entrySet() )
+        {
+            Map<String, String> values = new CaseInsensitiveMap();
+            for ( Map.Entry<String, String> value : group.getValue().entrySet() )
+            {
+                values.put( value.getKey(), value.getValue() );
+            }
+            index.put( group.getKey().toLowerCase(), Collections.unmodifiableMap( values ) );
+        }
+        this.index = Collections.unmodifiableMap( index );
+    }
+
     public final <T> T configure( T object )
     {
-        for ( Class<?> iface : object.getClass().getInterfaces() )
+        return configure( object, current );
+    }
+
+    private <T> T configure( T object, Snapshot snapshot )
+    {
+        long start = ConfigurationMetrics.ENABLED ? System.nanoTime() : 0;
+        ConfigurationEvents.Configure event = new ConfigurationEvents.Configure();
+        event.begin();
+        Configurator[] plan = plans.get( object.getClass() );
+        for ( Configurator configurator : plan )
         {
-            Configurator configurator = getConfigurator( iface );
-            if ( configurator != null ) configurator.configure( this, object );
+            configurator.configure( this, object, configurator.resolve( snapshot ), registrations );
+        }
+        if ( ConfigurationMetrics.ENABLED ) metrics.configured( object.getClass(), System.nanoTime() - start );
+        if ( event.shouldCommit() )
+        {
+            event.target = object.getClass().getName();
+            event.parameters = plan.length;
+            event.commit();
         }
         return object;
     }
 
+    /**
+     * Get the metrics of this configuration. Metrics are only collected when the
+     * <code>org.neo4j.config.metrics</code> system property is <code>true</code>.
+     *
+     * @return the metrics, or <code>null</code> if metrics are disabled.
+     */
+    public final ConfigurationMetrics metrics()
+    {
+        return metrics;
+    }
+
+    Collection<Configurator> countedConfigurators()
+    {
+        return counted;
+    }
+
+    /**
+     * Get the current snapshot of the configuration. The snapshot is immutable, configuring objects from it always
+     * uses the values that were current when the snapshot was taken, even if the configuration is updated
+     * concurrently. A snapshot is kept for as long as it is referenced, and reclaimed by the garbage collector when
+     * it no longer is.
+     *
+     * @return the current snapshot of the configuration.
+     */
+    public final Snapshot snapshot()
+    {
+        return current;
+    }
+
+    /**
+     * An immutable, versioned state of a {@link Configuration}. Every update of the configuration, regardless of
+     * how many groups and parameters it changes, publishes a new snapshot atomically.
+     */
+    public final class Snapshot
+    {
+        private final long version;
+        private final Map<String, Map<String, String>> changed;
+
+        private Snapshot( long version, Map<String, Map<String, String>> changed )
+        {
+            this.version = version;
+            this.changed = changed;
+        }
+
+        /**
+         * @return the version of this snapshot, increasing with every update of the configuration.
+         */
+        public long version()
+        {
+            return version;
+        }
+
+        /**
+         * Configure an object with the values of this snapshot.
+         *
+         * @param object the object to configure.
+         * @return the same object.
+         * @see Configuration#configure(Object)
+         */
+        public <T> T configure( T object )
+        {
+            return Configuration.this.configure( object, this );
+        }
+
+        String get( String group, String key )
+        {
+            Map<String, String> values = changed.get( group );
+            if ( values != null )
+            {
+                String value = values.get( key );
+                if ( value != null ) return value;
+            }
+            return group( group ).get( key );
+        }
+
+        Snapshot with( Map<String, Map<String, String>> updates )
+        {
+            Map<String, Map<String, String>> changed = new HashMap<String, Map<String, String>>( this.changed );
+            for ( Map.Entry<String, Map<String, String>> update : updates.entrySet() )
+            {
+                Map<String, String> values = changed.get( update.getKey() );
+                values = values == null ? new HashMap<String, String>() : new HashMap<String, String>( values );
+                values.putAll( update.getValue() );
+                changed.put( update.getKey(), values );
+            }
+            return new Snapshot( version + 1, changed );
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Configuration.Snapshot[version=" + version + "]";
+        }
+    }
+
+    private volatile Snapshot current = new Snapshot( 0, Collections.<String, Map<String, String>>emptyMap() );
+    private final Object updateLock = new Object();
+
+    private Snapshot publish( Map<String, Map<String, String>> updates )
+    {
+        synchronized ( updateLock )
+        {
+            return current = current.with( updates );
+        }
+    }
+
+    /**
+     * Configure all objects in a collection. The value of each parameter is resolved once for the entire batch, from
+     * the same {@link #snapshot() snapshot}, and the listeners of the mutable objects are registered together when
+     * all objects have been configured.
+     *
+     * @param objects the objects to configure.
+     * @return the same collection of objects.
+     */
+    public final <C extends Collection<?>> C configureAll( C objects )
+    {
+        Batch batch = new Batch();
+        batch.configure( objects );
+        batch.register();
+        return objects;
+    }
+
+    /**
+     * Configure all objects in a collection, in parallel in the given pool. The value of each parameter is resolved
+     * once for the entire batch, from the same {@link #snapshot() snapshot}, and the listeners of the mutable objects
+     * are registered together when all objects have been configured.
+     *
+     * @param objects the objects to configure.
+     * @param pool the pool to configure the objects in.
+     * @return the same collection of objects.
+     */
+    public final <C extends Collection<?>> C configureAll( C objects, ForkJoinPool pool )
+    {
+        Batch batch = new Batch();
+        pool.invoke( batch.new Task( objects.toArray(), 0, objects.size() ) );
+        batch.register();
+        return objects;
+    }
+
+    private final class Batch
+    {
+        private static final int THRESHOLD = 1024;
+        private final Snapshot snapshot = current;
+        private final ConcurrentMap<Configurator, Converted> resolved =
+                new ConcurrentHashMap<Configurator, Converted>();
+        private final Queue<BatchRegistrations> registrations = new ConcurrentLinkedQueue<BatchRegistrations>();
+
+        void configure( Iterable<?> objects )
+        {
+            BatchRegistrations registrations = new BatchRegistrations();
+            Configurator[] plan = null;
+            Converted[] values = null;
+            for ( Object object : objects )
+            {
+                long start = ConfigurationMetrics.ENABLED ? System.nanoTime() : 0;
+                ConfigurationEvents.Configure event = new ConfigurationEvents.Configure();
+                event.begin();
+                Configurator[] current = plans.get( object.getClass() );
+                if ( current != plan ) values = resolve( plan = current );
+                for ( int i = 0; i < plan.length; i++ )
+                {
+                    plan[i].configure( Configuration.this, object, values[i], registrations );
+                }
+                if ( ConfigurationMetrics.ENABLED ) metrics.configured( object.getClass(), System.nanoTime() - start );
+                if ( event.shouldCommit() )
+                {
+                    event.target = object.getClass().getName();
+                    event.parameters = plan.length;
+                    event.commit();
+                }
+            }
+            this.registrations.add( registrations );
+        }
+
+        private Converted[] resolve( Configurator[] plan )
+        {
+            Converted[] values = new Converted[plan.length];
+            for ( int i = 0; i < plan.length; i++ )
+            {
+                Converted value = resolved.get( plan[i] );
+                if ( value == null )
+                {
+                    Converted other = resolved.putIfAbsent( plan[i], value = plan[i].resolve( snapshot ) );
+                    if ( other != null ) value = other;
+                }
+                values[i] = value;
+            }
+            return values;
+        }
+
+        void register()
+        {
+            removeCollectedListeners();
+            Map<Configurator, List<MutationPolicy.MutationListener>> all =
+                    new HashMap<Configurator, List<MutationPolicy.MutationListener>>();
+            for ( BatchRegistrations registered : registrations )
+            {
+                for ( Map.Entry<Configurator, List<MutationPolicy.MutationListener>> entry :
+                        registered.listeners.entrySet() )
+                {
+                    List<MutationPolicy.MutationListener> listeners = all.get( entry.getKey() );
+                    if ( listeners == null )
+                    {
+                        all.put( entry.getKey(), entry.getValue() );
+                    }
+                    else
+                    {
+                        listeners.addAll( entry.getValue() );
+                    }
+                }
+            }
+            for ( Map.Entry<Configurator, List<MutationPolicy.MutationListener>> entry : all.entrySet() )
+            {
+                listeners( entry.getKey() ).addAll( entry.getValue() );
+            }
+            // changes published while the batch was configured did not reach the listeners registered above
+            Snapshot latest = current;
+            if ( latest.version() == snapshot.version() ) return;
+            List<MutationPolicy.MutationListener> stale = new ArrayList<MutationPolicy.MutationListener>();
+            for ( Map.Entry<Configurator, List<MutationPolicy.MutationListener>> entry : all.entrySet() )
+            {
+                Configurator configurator = entry.getKey();
+                String before = snapshot.get( configurator.group, configurator.key );
+                String after = latest.get( configurator.group, configurator.key );
+                if ( before == null ? after == null : before.equals( after ) ) continue;
+                for ( MutationPolicy.MutationListener listener : entry.getValue() )
+                {
+                    if ( !listener.requireRestart() ) stale.add( listener );
+                }
+            }
+            if ( !stale.isEmpty() ) listenerDispatch().dispatch( Configuration.this, stale );
+        }
+
+        @SuppressWarnings( "serial" )
+        class Task extends RecursiveAction
+        {
+            private final Object[] objects;
+            private final int from, to;
+
+            Task( Object[] objects, int from, int to )
+            {
+                this.objects = objects;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute()
+            {
+                if ( to - from <= THRESHOLD )
+                {
+                    configure( Arrays.asList( objects ).subList( from, to ) );
+                }
+                else
+                {
+                    int mid = ( from + to ) >>> 1;
+                    invokeAll( new Task( objects, from, mid ), new Task( objects, mid, to ) );
+                }
+            }
+        }
+    }
+
+    private static class BatchRegistrations extends Registrations
+    {
+        final Map<Configurator, List<MutationPolicy.MutationListener>> listeners =
+                new HashMap<Configurator, List<MutationPolicy.MutationListener>>();
+
+        @Override
+        void add( MutationPolicy.MutationListener listener )
+        {
+            List<MutationPolicy.MutationListener> registered = listeners.get( listener.configurator );
+            if ( registered == null )
+            {
+                listeners.put( listener.configurator, registered = new ArrayList<MutationPolicy.MutationListener>() );
+            }
+            registered.add( listener );
+        }
+    }
+
+    /**
+     * Get an implementation of a getter style configuration interface, that always returns the current values of
+     * the configuration. A getter style interface is annotated with {@link Parameter} like any configuration
+     * interface, but declares any number of methods without parameters, one for each parameter of the group. The
+     * name of each parameter is the name of its getter, without a <code>get</code> or <code>is</code> prefix.
+     *
+     * Every getter reads a volatile field that is written when the configuration changes, there is no callback to
+     * register. The implementation is generated by the {@link ParameterProcessor} when it is available, or else a
+     * {@link java.lang.reflect.Proxy}. The binding is updated for as long as it is referenced.
+     *
+     * @param iface the getter style configuration interface.
+     * @return the bound implementation of the interface.
+     */
+    public final <T> T bind( Class<T> iface )
+    {
+        Configurator[] slots = bindings.get( iface );
+        ParameterBinding binding = ParameterBinding.create( this, iface, getters( iface ) );
+        Snapshot snapshot = current;
+        for ( Configurator slot : slots )
+        {
+            slot.configure( this, binding, slot.resolve( snapshot ), registrations );
+        }
+        return iface.cast( binding.instance() );
+    }
+
+    /**
+     * Stop applying configuration changes to an object that was previously {@link #configure(Object) configured}
+     * or {@link #bind(Class) bound}.
+     * Objects that are garbage collected are unregistered automatically, this method is for objects that outlive
+     * their use, or that should stop receiving updates at a well defined point in time.
+     *
+     * @param object the object to stop applying configuration changes to.
+     */
+    public final void unconfigure( Object object )
+    {
+        ParameterBinding binding = ParameterBinding.of( object );
+        if ( binding != null ) object = binding;
+        for ( Configurator configurator : binding != null ? bindings.get( binding.iface )
+                : plans.get( object.getClass() ) )
+        {
+            Listeners listeners = changeListeners.get( new Key( configurator.group, configurator.key ) );
+            if ( listeners != null ) listeners.remove( object );
+        }
+        removeCollectedListeners();
+    }
+
     private final List<ConfigurationManager> managers = new CopyOnWriteArrayList<ConfigurationManager>();
 
     void addManager( ConfigurationManager manager )
@@ -49,47 +461,409 @@ public abstract class Configuration
         managers.add( configure( manager ) );
     }
 
-    void change( ConfigurationManager.ConfigurationUpdate update )
+    void removeManager( ConfigurationManager manager )
+    {
+        managers.remove( manager );
+        unconfigure( manager );
+    }
+
+    CompletableFuture<Void> change( ConfigurationManager.ConfigurationUpdate update )
     {
+        long start = ConfigurationMetrics.ENABLED ? System.nanoTime() : 0;
+        ConfigurationEvents.Change event = new ConfigurationEvents.Change();
+        event.begin();
+        removeCollectedListeners();
         boolean restart = false;
-        Map<Key, UpdatedValue> updates = new HashMap<Key, UpdatedValue>();
-        for ( MutationPolicy.MutationListener listener : changeListeners )
+        List<UpdatedValue> updates = new ArrayList<UpdatedValue>();
+        // every changed value is published, the listeners only decide which objects are notified, except for the
+        // values that require a restart, those are staged until the restart runs
+        Map<String, Map<String, String>> values = new HashMap<String, Map<String, String>>();
+        for ( String group : update.groups() )
         {
-            Key key = new Key( listener.configurator.group, listener.configurator.name );
-            UpdatedValue values = updates.get( key );
-            if ( values == null )
+            for ( String name : update.names( group ) )
             {
-                String value = update.pop( key.group, key.name );
-                if ( value != null ) updates.put( key, values = new UpdatedValue( value ) );
+                String value = update.pop( group, name );
+                if ( value == null ) continue;
+                Listeners listeners = changeListeners.get( new Key( group.toLowerCase(), name.toLowerCase() ) );
+                if ( listeners != null && !listeners.isEmpty() )
+                {
+                    updates.add( new UpdatedValue( group.toLowerCase(), name, value, listeners ) );
+                    if ( listeners.requireRestart() )
+                    {
+                        restart = true;
+                        continue;
+                    }
+                }
+                Map<String, String> groupValues = values.get( group.toLowerCase() );
+                if ( groupValues == null )
+                {
+                    values.put( group.toLowerCase(), groupValues = new HashMap<String, String>() );
+                }
+                groupValues.put( name.toLowerCase(), value );
             }
-            if ( values != null )
+        }
+        update.done();
+        if ( !values.isEmpty() ) publish( values );
+        if ( restart )
+        {
+            synchronized ( pendingRestart )
             {
-                values.add( listener );
-                restart |= listener.requireRestart();
+                for ( UpdatedValue change : updates )
+                {
+                    if ( !change.requireRestart ) continue;
+                    change.addRestartScopesTo( pendingScopes );
+                    Map<String, String> group = pendingRestart.get( change.group );
+                    if ( group == null ) pendingRestart.put( change.group, group = new TreeMap<String, String>() );
+                    group.put( change.name.toLowerCase(), change.value );
+                }
             }
         }
-        update.done();
-        for ( Map.Entry<Key, UpdatedValue> change : updates.entrySet() )
+        List<MutationPolicy.MutationListener> listeners = new ArrayList<MutationPolicy.MutationListener>();
+        for ( UpdatedValue change : updates )
         {
-            Key key = change.getKey();
-            set( key.group, key.name, change.getValue().value );
+            if ( !change.requireRestart ) change.addListenersTo( listeners );
         }
-        if ( restart )
+        CompletableFuture<Void> dispatched;
+        if ( listeners.isEmpty() )
         {
-            restart();
+            dispatched = CompletableFuture.completedFuture( null );
         }
         else
         {
-            for ( UpdatedValue change : updates.values() )
+            dispatched = listenerDispatch().dispatch( this, listeners );
+            if ( ConfigurationMetrics.ENABLED ) metrics.dispatching( dispatched, start );
+        }
+        // after the dispatch, so that a failing immediate restart does not keep the published values from the
+        // objects that apply them
+        if ( restart ) restartPolicy().schedule( this );
+        if ( event.shouldCommit() )
+        {
+            Set<String> groups = new TreeSet<String>( values.keySet() );
+            for ( UpdatedValue change : updates )
+            {
+                groups.add( change.group );
+                event.listeners += change.listeners.count;
+            }
+            event.groups = String.join( ",", groups );
+            event.keys = keysOf( updates );
+            event.requireRestart = restart;
+            event.commit();
+        }
+        return dispatched;
+    }
+
+    /**
+     * The changed parameters as comma separated <code>group.name</code>, for {@link ConfigurationEvents}.
+     */
+    private static String keysOf( List<UpdatedValue> updates )
+    {
+        StringBuilder keys = new StringBuilder();
+        for ( UpdatedValue change : updates )
+        {
+            if ( keys.length() > 0 ) keys.append( ',' );
+            keys.append( change.group ).append( '.' ).append( change.name );
+        }
+        return keys.toString();
+    }
+
+    private static String keysOf( Map<String, Map<String, String>> values )
+    {
+        StringBuilder keys = new StringBuilder();
+        for ( Map.Entry<String, Map<String, String>> group : values.entrySet() )
+        {
+            for ( String name : group.getValue().keySet() )
+            {
+                if ( keys.length() > 0 ) keys.append( ',' );
+                keys.append( group.getKey() ).append( '.' ).append( name );
+            }
+        }
+        return keys.toString();
+    }
+
+    private final Object restartLock = new Object();
+    /**
+     * The changes that are waiting for a restart, by name by group, and the scopes they affect. Guarded by
+     * <code>pendingRestart</code>.
+     */
+    private final Map<String, Map<String, String>> pendingRestart = new TreeMap<String, Map<String, String>>();
+    private final Set<String> pendingScopes = new TreeSet<String>();
+    private ScheduledFuture<?> scheduledRestart;
+
+    /**
+     * Decides when changes of parameters that can only change on restart are applied. Override to coalesce
+     * several changes into one restart, after a {@link RestartPolicy#quietPeriod(long, TimeUnit) quiet period} or
+     * in a {@link RestartPolicy#maintenanceWindow(java.time.LocalTime, java.time.LocalTime, java.time.ZoneId)
+     * maintenance window}.
+     *
+     * @return {@link RestartPolicy#IMMEDIATE} by default.
+     */
+    protected RestartPolicy restartPolicy()
+    {
+        return RestartPolicy.IMMEDIATE;
+    }
+
+    /**
+     * Get the changes that are waiting for a {@link #restartPolicy() scheduled} restart. The values become part of
+     * the current {@link #snapshot() snapshot} when the restart runs, until then the previous values stay in effect.
+     *
+     * @return the pending values, by parameter name, by group.
+     */
+    public final Map<String, Map<String, String>> pendingRestart()
+    {
+        Map<String, Map<String, String>> pending = new TreeMap<String, Map<String, String>>();
+        synchronized ( pendingRestart )
+        {
+            for ( Map.Entry<String, Map<String, String>> group : pendingRestart.entrySet() )
+            {
+                pending.put( group.getKey(),
+                             Collections.unmodifiableMap( new TreeMap<String, String>( group.getValue() ) ) );
+            }
+        }
+        return Collections.unmodifiableMap( pending );
+    }
+
+    /**
+     * @return the scopes the pending changes will restart, in restart order.
+     */
+    public final List<String> pendingRestartScopes()
+    {
+        Set<String> affected;
+        synchronized ( pendingRestart )
+        {
+            affected = new TreeSet<String>( pendingScopes );
+        }
+        return restartScopes.restartOrder( affected );
+    }
+
+    /**
+     * Restart the scopes affected by all pending changes now, on the calling thread, instead of when the
+     * {@link #restartPolicy() restart policy} would. Does nothing if no changes are pending. If the restart fails,
+     * the changes stay pending, and are restarted with the next change that requires a restart.
+     */
+    public final void restartNow()
+    {
+        synchronized ( restartLock )
+        {
+            Map<String, Map<String, String>> values;
+            Set<String> affected;
+            synchronized ( pendingRestart )
+            {
+                if ( pendingScopes.isEmpty() ) return;
+                values = new TreeMap<String, Map<String, String>>( pendingRestart );
+                affected = new TreeSet<String>( pendingScopes );
+                pendingRestart.clear();
+                pendingScopes.clear();
+                if ( scheduledRestart != null ) scheduledRestart.cancel( false );
+                scheduledRestart = null;
+            }
+            List<String> scopes;
+            long start = ConfigurationMetrics.ENABLED ? System.nanoTime() : 0;
+            ConfigurationEvents.Restart event = new ConfigurationEvents.Restart();
+            event.begin();
+            boolean restarted = false;
+            Map<String, Map<String, String>> previous = null;
+            try
+            {
+                scopes = restartScopes.restartOrder( affected );
+                previous = publishRestart( values );
+                restart( scopes );
+                restarted = true;
+            }
+            finally
+            {
+                if ( !restarted )
+                {
+                    if ( previous != null ) restore( values, previous );
+                    requeue( values, affected );
+                }
+            }
+            if ( ConfigurationMetrics.ENABLED ) metrics.restarted( System.nanoTime() - start );
+            // the objects outside of the restarted scopes apply the changes of their mutable parameters
+            List<MutationPolicy.MutationListener> listeners = new ArrayList<MutationPolicy.MutationListener>();
+            for ( Map.Entry<String, Map<String, String>> group : values.entrySet() )
+            {
+                for ( String name : group.getValue().keySet() )
+                {
+                    Listeners registered = changeListeners.get( new Key( group.getKey(), name ) );
+                    if ( registered != null ) registered.addMutableTo( listeners );
+                }
+            }
+            if ( !listeners.isEmpty() ) listenerDispatch().dispatch( this, listeners );
+            if ( event.shouldCommit() )
+            {
+                event.groups = String.join( ",", values.keySet() );
+                event.keys = keysOf( values );
+                event.scopes = String.join( ",", scopes );
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Publish the values of a restart, so that the restarted scopes see them.
+     *
+     * @return the values they replace, by parameter name, by group.
+     */
+    private Map<String, Map<String, String>> publishRestart( Map<String, Map<String, String>> values )
+    {
+        Map<String, Map<String, String>> previous = new HashMap<String, Map<String, String>>();
+        synchronized ( updateLock )
+        {
+            for ( Map.Entry<String, Map<String, String>> group : values.entrySet() )
+            {
+                Map<String, String> replaced = new HashMap<String, String>();
+                for ( String name : group.getValue().keySet() )
+                {
+                    replaced.put( name, current.get( group.getKey(), name ) );
+                }
+                previous.put( group.getKey(), replaced );
+            }
+            current = current.with( values );
+        }
+        return previous;
+    }
+
+    /**
+     * Restore the values replaced by a failed restart, unless they have been changed since. A replaced value of
+     * <code>null</code> falls back to the initial value of the group again.
+     */
+    private void restore( Map<String, Map<String, String>> values, Map<String, Map<String, String>> previous )
+    {
+        synchronized ( updateLock )
+        {
+            Map<String, Map<String, String>> restored = new HashMap<String, Map<String, String>>();
+            for ( Map.Entry<String, Map<String, String>> group : values.entrySet() )
             {
-                change.update( this );
+                for ( Map.Entry<String, String> value : group.getValue().entrySet() )
+                {
+                    if ( !value.getValue().equals( current.get( group.getKey(), value.getKey() ) ) ) continue;
+                    Map<String, String> groupValues = restored.get( group.getKey() );
+                    if ( groupValues == null )
+                    {
+                        restored.put( group.getKey(), groupValues = new HashMap<String, String>() );
+                    }
+                    groupValues.put( value.getKey(), previous.get( group.getKey() ).get( value.getKey() ) );
+                }
             }
+            if ( !restored.isEmpty() ) current = current.with( restored );
         }
     }
 
+    /**
+     * Stage the changes of a failed restart again, unless they have been changed since.
+     */
+    private void requeue( Map<String, Map<String, String>> values, Set<String> affected )
+    {
+        synchronized ( pendingRestart )
+        {
+            for ( Map.Entry<String, Map<String, String>> group : values.entrySet() )
+            {
+                Map<String, String> pending = pendingRestart.get( group.getKey() );
+                if ( pending == null )
+                {
+                    pendingRestart.put( group.getKey(), group.getValue() );
+                    continue;
+                }
+                for ( Map.Entry<String, String> value : group.getValue().entrySet() )
+                {
+                    if ( !pending.containsKey( value.getKey() ) ) pending.put( value.getKey(), value.getValue() );
+                }
+            }
+            pendingScopes.addAll( affected );
+        }
+    }
+
+    /**
+     * Replace the scheduled restart, when a {@link RestartPolicy} postpones the restart after another change. The
+     * restart is submitted while holding the lock of the pending changes, so that a restart that runs right away
+     * cannot replace or cancel one that a concurrent change scheduled after it.
+     */
+    void scheduleRestart( ScheduledExecutorService timer, Runnable restart, long nanos )
+    {
+        synchronized ( pendingRestart )
+        {
+            if ( scheduledRestart != null ) scheduledRestart.cancel( false );
+            // nothing to schedule if another thread already restarted
+            scheduledRestart = pendingScopes.isEmpty() ? null : timer.schedule( restart, nanos, TimeUnit.NANOSECONDS );
+        }
+    }
+
+    /**
+     * Decides how changes are applied to the mutable objects of this configuration. Override to apply changes
+     * {@link ListenerDispatch#asynchronous(java.util.concurrent.Executor, long, TimeUnit) asynchronously}.
+     *
+     * @return {@link ListenerDispatch#SYNCHRONOUS} by default.
+     */
+    protected ListenerDispatch listenerDispatch()
+    {
+        return ListenerDispatch.SYNCHRONOUS;
+    }
+
+    /**
+     * Invoked when an object takes longer than allowed by the {@link #listenerDispatch() dispatch} to apply a
+     * configuration change. Reports a {@link #warning(String, Throwable) warning} by default.
+     */
+    protected void listenerSlow( Object target, long timeout, TimeUnit unit )
+    {
+        warning( target + " did not apply configuration change within " + timeout + " "
+                 + unit.toString().toLowerCase(), null );
+    }
+
+    /**
+     * Invoked when an object fails to apply a configuration change that is {@link #listenerDispatch() dispatched}
+     * asynchronously. Reports a {@link #warning(String, Throwable) warning} by default.
+     */
+    protected void listenerFailed( Object target, Throwable failure )
+    {
+        warning( target + " failed to apply configuration change", failure );
+    }
+
+    /**
+     * Invoked when something goes wrong that does not fail the operation that ran into it, such as a configuration
+     * file that could not be reloaded, or a scheduled restart that failed. Logged as a warning to the
+     * <code>org.neo4j.config.Configuration</code> {@link System.Logger logger} by default, which the platform backs
+     * with <code>java.util.logging</code> unless another logging framework is installed. Override to report the
+     * warnings elsewhere.
+     *
+     * May be invoked from any thread, and while this configuration is being constructed, when its
+     * {@link ConfigurationSource} reports a problem.
+     *
+     * @param message what went wrong.
+     * @param cause the failure, or <code>null</code> if there is none.
+     */
+    protected void warning( String message, Throwable cause )
+    {
+        LOG.log( System.Logger.Level.WARNING, message, cause );
+    }
+
+    private static final System.Logger LOG = System.getLogger( Configuration.class.getName() );
+
     protected abstract void restart();
 
-    protected abstract void initialize( String group, Map<String, String> config );
+    /**
+     * Restart the parts of the system that use parameters that have changed and can only change on restart. The
+     * parameters are grouped into {@link Parameter.RestartScope scopes}, such as components, and only the affected
+     * scopes, and the scopes that depend on them, are restarted. Override to restart individual scopes instead of
+     * the entire system.
+     *
+     * @param scopes the scopes to restart, ordered so that every scope comes after the scopes it depends on.
+     */
+    protected void restart( List<String> scopes )
+    {
+        restart();
+    }
+
+    /**
+     * Initialize the values of a configuration group. Invoked the first time a group is used, unless this
+     * configuration was created with a {@link ConfigurationSource}.
+     *
+     * @param group the name of the group to initialize.
+     * @param config the map to put the initial values of the group in.
+     */
+    protected void initialize( String group, Map<String, String> config )
+    {
+        // no values by default
+    }
 
     private static class Key
     {
@@ -104,7 +878,7 @@ public abstract class Configuration
         @Override
         public int hashCode()
         {
-            return group.hashCode() * 31 | name.hashCode();
+            return group.hashCode() * 31 + name.hashCode();
         }
 
         @Override
@@ -116,108 +890,525 @@ public abstract class Configuration
                 Key that = (Key) obj;
                 return group.equals( that.group ) && name.equals( that.name );
             }
-            return false;
+            return false;
+        }
+    }
+
+    private static class UpdatedValue
+    {
+        private final String group, name, value;
+        private final Registered listeners;
+        private final boolean requireRestart;
+
+        UpdatedValue( String group, String name, String value, Listeners listeners )
+        {
+            this.group = group;
+            this.name = name;
+            this.value = value;
+            this.listeners = listeners.registered;
+            this.requireRestart = listeners.requireRestart();
+        }
+
+        void addListenersTo( List<MutationPolicy.MutationListener> target )
+        {
+            for ( int i = 0; i < listeners.count; i++ )
+            {
+                if ( !listeners.listeners[i].requireRestart() ) target.add( listeners.listeners[i] );
+            }
+        }
+
+        void addRestartScopesTo( Set<String> scopes )
+        {
+            for ( int i = 0; i < listeners.count; i++ )
+            {
+                MutationPolicy.MutationListener listener = listeners.listeners[i];
+                if ( listener.requireRestart() ) scopes.add( listener.configurator.restartScope );
+            }
+        }
+    }
+
+    /**
+     * The listeners for a single configuration parameter. Listeners are appended into an array that grows by
+     * doubling, so that registering many mutable targets does not copy the list on every registration. Removing
+     * listeners compacts them into a new array, so that readers of a previously {@link Registered registered}
+     * prefix are never affected.
+     */
+    private static class Listeners
+    {
+        private volatile Registered registered = new Registered( new MutationPolicy.MutationListener[4], 0 );
+        private volatile boolean requireRestart;
+
+        synchronized void add( MutationPolicy.MutationListener listener )
+        {
+            MutationPolicy.MutationListener[] listeners = registered.listeners;
+            int count = registered.count;
+            if ( count == listeners.length ) listeners = Arrays.copyOf( listeners, count * 2 );
+            listeners[count] = listener;
+            if ( listener.requireRestart() ) requireRestart = true;
+            registered = new Registered( listeners, count + 1 );
+        }
+
+        synchronized void addAll( List<MutationPolicy.MutationListener> added )
+        {
+            MutationPolicy.MutationListener[] listeners = registered.listeners;
+            int count = registered.count;
+            if ( count + added.size() > listeners.length )
+            {
+                listeners = Arrays.copyOf( listeners, Math.max( count * 2, count + added.size() ) );
+            }
+            for ( MutationPolicy.MutationListener listener : added )
+            {
+                listeners[count++] = listener;
+                if ( listener.requireRestart() ) requireRestart = true;
+            }
+            registered = new Registered( listeners, count );
+        }
+
+        /**
+         * Remove the listeners for the given target, and all listeners whose target has been garbage collected.
+         *
+         * @param target the target to remove the listeners for, or <code>null</code> to only remove collected ones.
+         */
+        synchronized void remove( Object target )
+        {
+            MutationPolicy.MutationListener[] listeners = registered.listeners;
+            MutationPolicy.MutationListener[] kept = new MutationPolicy.MutationListener[listeners.length];
+            int count = 0;
+            boolean restart = false;
+            for ( int i = 0; i < registered.count; i++ )
+            {
+                MutationPolicy.MutationListener listener = listeners[i];
+                Object registeredTarget = listener.get();
+                if ( registeredTarget == null ) continue;
+                if ( registeredTarget == target )
+                {
+                    listener.clear();
+                    continue;
+                }
+                kept[count++] = listener;
+                restart |= listener.requireRestart();
+            }
+            requireRestart = restart;
+            registered = new Registered( kept, count );
+        }
+
+        void addMutableTo( List<MutationPolicy.MutationListener> target )
+        {
+            Registered current = registered;
+            for ( int i = 0; i < current.count; i++ )
+            {
+                if ( !current.listeners[i].requireRestart() ) target.add( current.listeners[i] );
+            }
+        }
+
+        boolean isEmpty()
+        {
+            return registered.count == 0;
+        }
+
+        boolean requireRestart()
+        {
+            return requireRestart;
+        }
+
+        int size()
+        {
+            return registered.count;
+        }
+    }
+
+    private static class Registered
+    {
+        final MutationPolicy.MutationListener[] listeners;
+        final int count;
+
+        Registered( MutationPolicy.MutationListener[] listeners, int count )
+        {
+            this.listeners = listeners;
+            this.count = count;
+        }
+    }
+
+    private final ConcurrentMap<Key, Listeners> changeListeners = new ConcurrentHashMap<Key, Listeners>();
+    private final RestartScopes restartScopes = new RestartScopes();
+    private final ReferenceQueue<Object> collectedTargets = new ReferenceQueue<Object>();
+
+    void addMutationListener( MutationPolicy.MutationListener listener )
+    {
+        removeCollectedListeners();
+        listeners( listener.configurator ).add( listener );
+    }
+
+    private Listeners listeners( Configurator configurator )
+    {
+        Key key = new Key( configurator.group, configurator.key );
+        Listeners listeners = changeListeners.get( key );
+        if ( listeners == null )
+        {
+            Listeners other = changeListeners.putIfAbsent( key, listeners = new Listeners() );
+            if ( other != null ) listeners = other;
+        }
+        return listeners;
+    }
+
+    /**
+     * Receives the {@link MutationPolicy.MutationListener listeners} registered while configuring objects.
+     */
+    static abstract class Registrations
+    {
+        abstract void add( MutationPolicy.MutationListener listener );
+    }
+
+    private final Registrations registrations = new Registrations()
+    {
+        @Override
+        void add( MutationPolicy.MutationListener listener )
+        {
+            addMutationListener( listener );
+        }
+    };
+
+    /**
+     * The number of registered change listeners, by <code>group.parameter</code>, for {@link ConfigurationMetrics}.
+     */
+    Map<String, Integer> listenerCounts()
+    {
+        Map<String, Integer> counts = new TreeMap<String, Integer>();
+        for ( Map.Entry<Key, Listeners> entry : changeListeners.entrySet() )
+        {
+            counts.put( entry.getKey().group + "." + entry.getKey().name, entry.getValue().size() );
+        }
+        return counts;
+    }
+
+    ReferenceQueue<Object> collectedTargets()
+    {
+        return collectedTargets;
+    }
+
+    private void removeCollectedListeners()
+    {
+        Set<Key> affected = null;
+        for ( Reference<?> ref; ( ref = collectedTargets.poll() ) != null; )
+        {
+            Configurator configurator = ( (MutationPolicy.MutationListener) ref ).configurator;
+            if ( affected == null ) affected = new HashSet<Key>();
+            affected.add( new Key( configurator.group, configurator.key ) );
+        }
+        if ( affected != null ) for ( Key key : affected )
+        {
+            Listeners listeners = changeListeners.get( key );
+            if ( listeners != null ) listeners.remove( null );
+        }
+    }
+
+    String get( String group, String name )
+    {
+        return current.get( group, name.toLowerCase() );
+    }
+
+    /**
+     * Get a configuration group, initializing it if it is used for the first time. Each group is initialized by the
+     * first thread that uses it, other threads that use the same group wait for the initialization to complete, but
+     * threads that use other groups are not affected.
+     */
+    private ConfigGroup group( String group )
+    {
+        ConfigGroup cfg = groups.get( group );
+        if ( cfg == null )
+        {
+            ConfigGroup created = new ConfigGroup( group );
+            cfg = groups.putIfAbsent( group, created );
+            if ( cfg == null ) ( cfg = created ).initialize( this );
+        }
+        return cfg;
+    }
+
+    /**
+     * Initialize configuration groups ahead of their first use, in parallel in the common fork join pool.
+     *
+     * @see #prefetch(Collection, Executor)
+     */
+    public final CompletableFuture<Void> prefetch( Collection<String> groups )
+    {
+        return prefetch( groups, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Initialize configuration groups ahead of their first use, in parallel in the given executor. This is useful
+     * during startup, when the initialization of some groups is expensive.
+     *
+     * @param groups the names of the groups to initialize.
+     * @param executor the executor to initialize the groups in.
+     * @return a future that completes when all groups are initialized.
+     */
+    public final CompletableFuture<Void> prefetch( Collection<String> groups, Executor executor )
+    {
+        CompletableFuture<?>[] initialized = new CompletableFuture<?>[groups.size()];
+        int i = 0;
+        for ( final String group : groups )
+        {
+            initialized[i++] = CompletableFuture.runAsync( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    group( group.toLowerCase() ).await();
+                }
+            }, executor );
+        }
+        return CompletableFuture.allOf( initialized );
+    }
+
+    /**
+     * Prepare every configuration interface that has a descriptor generated by the {@link ParameterProcessor}, in
+     * parallel in the common fork join pool.
+     *
+     * @see #warmUp(Collection, ForkJoinPool)
+     */
+    public final void warmUp()
+    {
+        warmUp( ParameterDescriptor.generatedInterfaces(), ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Prepare configuration interfaces ahead of their first use, in parallel in the given pool, typically during
+     * startup before the system accepts requests. Building the configurator of an interface is otherwise done by
+     * the first {@link #configure(Object)} that uses it. Each interface is validated: the current value of each
+     * parameter, or its default value if it has none, is converted, which also initializes the groups of the
+     * parameters.
+     *
+     * @param interfaces the configuration interfaces to prepare, including {@link #bind(Class) getter style}
+     *            interfaces.
+     * @param pool the pool to prepare the interfaces in.
+     * @throws IllegalStateException if any interface is invalid, with the failure of each invalid interface
+     *             {@link Throwable#getSuppressed() suppressed}.
+     */
+    public final void warmUp( Collection<Class<?>> interfaces, ForkJoinPool pool )
+    {
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+        Class<?>[] all = interfaces.toArray( new Class<?>[interfaces.size()] );
+        pool.invoke( new WarmUp( all, 0, all.length, current, failures ) );
+        if ( !failures.isEmpty() )
+        {
+            IllegalStateException failure = new IllegalStateException(
+                    failures.size() + " of " + all.length + " configuration interfaces are invalid." );
+            for ( Throwable invalid : failures )
+            {
+                failure.addSuppressed( invalid );
+            }
+            throw failure;
+        }
+    }
+
+    @SuppressWarnings( "serial" )
+    private final class WarmUp extends RecursiveAction
+    {
+        private final Class<?>[] interfaces;
+        private final int from, to;
+        private final Snapshot snapshot;
+        private final Queue<Throwable> failures;
+
+        WarmUp( Class<?>[] interfaces, int from, int to, Snapshot snapshot, Queue<Throwable> failures )
+        {
+            this.interfaces = interfaces;
+            this.from = from;
+            this.to = to;
+            this.snapshot = snapshot;
+            this.failures = failures;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if ( to - from > 1 )
+            {
+                int mid = ( from + to ) >>> 1;
+                invokeAll( new WarmUp( interfaces, from, mid, snapshot, failures ),
+                           new WarmUp( interfaces, mid, to, snapshot, failures ) );
+            }
+            else if ( to > from )
+            {
+                Class<?> iface = interfaces[from];
+                try
+                {
+                    prepare( iface );
+                }
+                catch ( RuntimeException e )
+                {
+                    failures.add( new IllegalArgumentException( "Invalid configuration interface " + iface.getName()
+                                                                + ": " + e.getMessage(), e ) );
+                }
+            }
+        }
+
+        private void prepare( Class<?> iface )
+        {
+            if ( iface.isAnnotationPresent( Parameter.class ) && getters( iface ) != null )
+            {
+                for ( Configurator slot : bindings.get( iface ) )
+                {
+                    slot.validate( snapshot );
+                }
+            }
+            else
+            {
+                Configurator configurator = getConfigurator( iface );
+                if ( configurator == null )
+                    throw new IllegalArgumentException( "Not a configuration interface." );
+                configurator.validate( snapshot );
+            }
+        }
+    }
+
+    private final ConcurrentMap<String, ConfigGroup> groups = new ConcurrentHashMap<String, ConfigGroup>();
+
+    /**
+     * The initial values of a configuration group, as provided by the {@link ConfigurationSource} or by
+     * {@link #initialize(String, Map)}. The initial values are never modified, updated values are kept in the
+     * {@link Snapshot snapshots}.
+     */
+    private static class ConfigGroup
+    {
+        private final String group;
+        private final CountDownLatch initialized = new CountDownLatch( 1 );
+        private volatile Map<String, String> config;
+        private volatile RuntimeException failure;
+        private volatile Thread initializer;
+
+        ConfigGroup( String group )
+        {
+            this.group = group;
+        }
+
+        void initialize( Configuration configuration )
+        {
+            initializer = Thread.currentThread();
+            long start = ConfigurationMetrics.ENABLED ? System.nanoTime() : 0;
+            try
+            {
+                if ( configuration.index != null )
+                {
+                    Map<String, String> config = configuration.index.get( group );
+                    this.config = config != null ? config : Collections.<String, String>emptyMap();
+                }
+                else
+                {
+                    Map<String, String> config = new CaseInsensitiveMap();
+                    configuration.initialize( group, config );
+                    this.config = new HashMap<String, String>( config );
+                }
+            }
+            catch ( RuntimeException e )
+            {
+                failure = e;
+                // allow the initialization to be retried
+                configuration.groups.remove( group, this );
+                throw e;
+            }
+            finally
+            {
+                if ( ConfigurationMetrics.ENABLED )
+                    configuration.metrics.initialized( group, System.nanoTime() - start );
+                initializer = null;
+                initialized.countDown();
+            }
         }
-    }
-
-    @SuppressWarnings( "serial" )
-    private static class UpdatedValue extends ArrayList<MutationPolicy.MutationListener>
-    {
-        private final String value;
 
-        UpdatedValue( String value )
+        String get( String key )
         {
-            this.value = value;
+            Map<String, String> config = this.config;
+            if ( config == null ) config = await();
+            return config.get( key );
         }
 
-        void update( Configuration config )
+        Map<String, String> await()
         {
-            for ( MutationPolicy.MutationListener listener : this )
+            if ( initializer == Thread.currentThread() )
+                throw new IllegalStateException( "Configuration group " + group
+                                                 + " used during its own initialization." );
+            boolean interrupted = false;
+            try
+            {
+                for ( ;; )
+                {
+                    try
+                    {
+                        initialized.await();
+                        break;
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        interrupted = true;
+                    }
+                }
+            }
+            finally
             {
-                listener.update( config );
+                if ( interrupted ) Thread.currentThread().interrupt();
             }
+            if ( failure != null )
+                throw new IllegalStateException( "Initialization of configuration group " + group + " failed.",
+                                                 failure );
+            return config;
         }
     }
 
-    private final List<MutationPolicy.MutationListener> changeListeners = new CopyOnWriteArrayList<MutationPolicy.MutationListener>();
-
-    void addMutationListener( MutationPolicy.MutationListener listener )
-    {
-        changeListeners.add( listener );
-    }
-
-    String get( String group, String name )
+    @SuppressWarnings( "serial" )
+    private static class CaseInsensitiveMap extends HashMap<String, String>
     {
-        ConfigGroup cfg;
-        synchronized ( groups )
+        @Override
+        public String put( String key, String value )
         {
-            cfg = groups.get( group );
-            if ( cfg == null ) groups.put( group, cfg = new ConfigGroup( group, this ) );
+            return super.put( key.toLowerCase(), value );
         }
-        return cfg.get( name );
-    }
 
-    void set( String group, String name, String value )
-    {
-        ConfigGroup cfg;
-        synchronized ( groups )
+        @Override
+        public String get( Object key )
         {
-            cfg = groups.get( group );
+            if ( key instanceof String )
+            {
+                key = ( (String) key ).toLowerCase();
+            }
+            return super.get( key );
         }
-        if ( cfg == null ) throw new IllegalStateException( "Updating a value for an unknown configuration group." );
-        cfg.set( name, value );
     }
 
-    private final Map<String, ConfigGroup> groups = new HashMap<String, ConfigGroup>();
+    private static final String[] CONFIG = {"configuration","config"};
+    private final Map<Class<?>, Configurator> configurators = new HashMap<Class<?>, Configurator>();
 
-    private static class ConfigGroup
+    /**
+     * The configurators to apply to instances of each class, covering all configuration interfaces implemented by
+     * the class, its superclasses and their superinterfaces. Classes without configuration interfaces get an empty
+     * plan, so that they are only ever inspected once.
+     */
+    private final ClassValue<Configurator[]> plans = new ClassValue<Configurator[]>()
     {
-        private final Map<String, String> config = new HashMap<String, String>()
-        {
-            @Override
-            public String put( String key, String value )
-            {
-                return super.put( key.toLowerCase(), value );
-            }
-
-            @Override
-            public String get( Object key )
-            {
-                if ( key instanceof String )
-                {
-                    key = ( (String) key ).toLowerCase();
-                }
-                return super.get( key );
-            }
-        };
-
-        ConfigGroup( String group, Configuration configuration )
+        @Override
+        protected Configurator[] computeValue( Class<?> type )
         {
-            synchronized ( config )
+            Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+            for ( Class<?> cls = type; cls != null; cls = cls.getSuperclass() )
             {
-                configuration.initialize( group, config );
+                addInterfaces( interfaces, cls.getInterfaces() );
             }
-        }
-
-        String get( String key )
-        {
-            synchronized ( config )
+            List<Configurator> plan = new ArrayList<Configurator>();
+            for ( Class<?> iface : interfaces )
             {
-                return config.get( key );
+                Configurator configurator = getConfigurator( iface );
+                if ( configurator != null ) plan.add( configurator );
             }
+            return plan.toArray( new Configurator[plan.size()] );
         }
 
-        void set( String key, String value )
+        private void addInterfaces( Set<Class<?>> interfaces, Class<?>[] declared )
         {
-            synchronized ( config )
+            for ( Class<?> iface : declared )
             {
-                config.put( key, value );
+                if ( interfaces.add( iface ) ) addInterfaces( interfaces, iface.getInterfaces() );
             }
         }
-    }
-
-    private static final String[] CONFIG = {"configuration","config"};
-    private final Map<Class<?>, Configurator> configurators = new HashMap<Class<?>, Configurator>();
+    };
 
     private Configurator getConfigurator( Class<?> iface )
     {
@@ -228,15 +1419,26 @@ public abstract class Configuration
         }
         if ( configurator == null )
         {
-            Parameter param = iface.getAnnotation( Parameter.class );
-            if ( param == null ) return null;
-            configurator = createConfigurator( iface, param );
+            ParameterDescriptor.reportLoadErrors( this );
+            ParameterDescriptor descriptor = ParameterDescriptor.generatedFor( iface );
+            if ( descriptor != null )
+            {
+                configurator = Configurator.create( descriptor );
+            }
+            else
+            {
+                Parameter param = iface.getAnnotation( Parameter.class );
+                if ( param == null || getters( iface ) != null ) return null;
+                configurator = createConfigurator( iface, param );
+            }
+            configurator.restartScope = restartScopes.declare( iface, configurator.group );
             synchronized ( configurators )
             {
                 Configurator other = configurators.get( iface );
                 if ( other != null ) return other;
                 configurators.put( iface, configurator );
             }
+            if ( ConfigurationMetrics.ENABLED ) counted.add( configurator );
         }
         return configurator;
     }
@@ -248,64 +1450,160 @@ public abstract class Configuration
             throw new IllegalArgumentException( "Configuration interfaces must define exactly one method. "
                                                 + iface.getName() + " defines " + methods.length + "." );
         Method method = methods[0];
+        String group = groupOf( iface, param );
+        String name = param.name();
+        if ( "".equals( name ) ) name = nameOf( method.getName(), iface.getSimpleName() );
+        return Configurator.create( method, group, name );
+    }
+
+    private static String groupOf( Class<?> iface, Parameter param )
+    {
         String group = param.group().toLowerCase();
+        if ( "".equals( group ) ) group = groupOf( iface.getPackage().getName() );
         if ( "".equals( group ) )
+            throw new IllegalArgumentException( "Could not determine configuration group for " + iface.getName() );
+        return group;
+    }
+
+    /**
+     * The configurators of the getters of each {@link #bind(Class) bound} configuration interface, in slot order.
+     */
+    private final ClassValue<Configurator[]> bindings = new ClassValue<Configurator[]>()
+    {
+        @Override
+        protected Configurator[] computeValue( Class<?> iface )
+        {
+            Parameter param = iface.getAnnotation( Parameter.class );
+            Method[] getters = getters( iface );
+            if ( param == null || getters == null )
+                throw new IllegalArgumentException( iface.getName() + " is not a getter style configuration "
+                                                    + "interface." );
+            String group = groupOf( iface, param );
+            Configurator[] configurators = new Configurator[getters.length];
+            for ( int slot = 0; slot < getters.length; slot++ )
+            {
+                configurators[slot] = Configurator.create( getters[slot], group,
+                                                           getterNameOf( getters[slot].getName() ), slot );
+                configurators[slot].restartScope = restartScopes.declare( iface, group );
+                if ( ConfigurationMetrics.ENABLED ) counted.add( configurators[slot] );
+            }
+            return configurators;
+        }
+    };
+
+    /**
+     * Get the getters of a getter style configuration interface, an interface where every abstract method takes no
+     * parameters and returns a value, in slot order: by name.
+     *
+     * @return the getters, or <code>null</code> if the interface is not a getter style interface.
+     */
+    static Method[] getters( Class<?> iface )
+    {
+        if ( !iface.isInterface() ) return null;
+        List<Method> getters = new ArrayList<Method>();
+        for ( Method method : iface.getDeclaredMethods() )
+        {
+            if ( !Modifier.isAbstract( method.getModifiers() ) ) continue;
+            if ( method.getParameterTypes().length != 0 || method.getReturnType() == void.class ) return null;
+            getters.add( method );
+        }
+        if ( getters.isEmpty() ) return null;
+        Collections.sort( getters, new Comparator<Method>()
+        {
+            @Override
+            public int compare( Method first, Method second )
+            {
+                return first.getName().compareTo( second.getName() );
+            }
+        } );
+        return getters.toArray( new Method[getters.size()] );
+    }
+
+    /**
+     * Derive the name of the parameter of a getter, by removing any <code>get</code> or <code>is</code> prefix.
+     */
+    static String getterNameOf( String methodName )
+    {
+        if ( methodName.startsWith( "get" ) && methodName.length() > 3 ) return methodName.substring( 3 );
+        if ( methodName.startsWith( "is" ) && methodName.length() > 2 ) return methodName.substring( 2 );
+        return methodName;
+    }
+
+    /**
+     * Derive the configuration group from the name of the package that declares a configuration interface.
+     *
+     * @return the group name, or the empty string if no group could be derived.
+     */
+    static String groupOf( String packageName )
+    {
+        String group = packageName.toLowerCase();
+        for ( final String config : CONFIG )
         {
-            group = iface.getPackage().getName().toLowerCase();
-            for ( final String config : CONFIG )
+            int idx = group.indexOf( config );
+            if ( idx >= 0 )
             {
-                int idx = group.indexOf( config );
-                if ( idx >= 0 )
+                if ( group.length() - idx == config.length() )
                 {
-                    if ( group.length() - idx == config.length() )
+                    if ( idx > 0 && group.charAt( idx - 1 ) == '.' )
                     {
-                        if ( idx > 0 && group.charAt( idx - 1 ) == '.' )
-                        {
-                            int lix = group.lastIndexOf( '.', idx - 2 );
-                            group = group.substring( lix + 1, idx - 1 );
-                        }
-                        else
-                        {
-                            group = "";
-                        }
+                        int lix = group.lastIndexOf( '.', idx - 2 );
+                        group = group.substring( lix + 1, idx - 1 );
                     }
-                    else if ( group.charAt( idx + config.length() ) == '.' )
+                    else
                     {
-                        group = group.substring( idx + config.length() + 1 );
+                        group = "";
                     }
-                    break;
                 }
+                else if ( group.charAt( idx + config.length() ) == '.' )
+                {
+                    group = group.substring( idx + config.length() + 1 );
+                }
+                break;
             }
         }
-        if ( "".equals( group ) )
-            throw new IllegalArgumentException( "Could not determine configuration group for " + iface.getName() );
-        String name = param.name();
-        if ( "".equals( name ) )
+        return group;
+    }
+
+    /**
+     * Derive the parameter name from the configuration method and the configuration interface.
+     */
+    static String nameOf( String methodName, String interfaceName )
+    {
+        if ( methodName.startsWith( "set" ) )
         {
-            name = method.getName();
-            if ( name.startsWith( "set" ) )
-            {
-                name = name.substring( 3 );
-            }
-            else
-            {
-                name = iface.getSimpleName();
-            }
+            return methodName.substring( 3 );
+        }
+        else
+        {
+            return interfaceName;
         }
-        return Configurator.create( method, group, name );
     }
 
     static abstract class Configurator
     {
-        final Method method;
-        private final String group, name;
+        private final Invoker invoker;
+        final String method;
+        final Class<?>[] parameterTypes;
+        private final String group, name, key;
         private final ResultHandler handler;
+        private volatile Converted converted;
+        /**
+         * The {@link Parameter.RestartScope restart scope} of the parameter, assigned before the configurator is
+         * published.
+         */
+        String restartScope;
+        private final LongAdder conversions = ConfigurationMetrics.ENABLED ? new LongAdder() : null;
+        private final LongAdder conversionFailures = ConfigurationMetrics.ENABLED ? new LongAdder() : null;
 
-        Configurator( Method method, String group, String name, ResultHandler handler )
+        Configurator( Invoker invoker, String method, Class<?>[] parameterTypes, String group, String name,
+                      ResultHandler handler )
         {
+            this.invoker = invoker;
             this.method = method;
+            this.parameterTypes = parameterTypes;
             this.group = group;
             this.name = name;
+            this.key = name.toLowerCase();
             this.handler = handler;
         }
 
@@ -314,31 +1612,70 @@ public abstract class Configuration
             Parameter.Type type = method.getAnnotation( Parameter.Type.class );
             Parameter.TypeConversion conversion = method.getAnnotation( Parameter.TypeConversion.class );
             ResultHandler result = ResultHandler.get( method.getReturnType() );
+            Invoker invoker = Invoker.create( method );
+            if ( type != null && conversion != null )
+                throw new IllegalArgumentException( "Configuration interface method may not declare both "
+                                                    + "@Parameter.Type and @Parameter.TypeConversion." );
+            return create( type, conversion, invoker, method.toString(), method.getGenericParameterTypes(), group,
+                           name, result );
+        }
+
+        /**
+         * Create the configurator for a getter of a {@link #bind(Class) bound} configuration interface, that
+         * stores the converted value in the given slot of the binding.
+         */
+        static Configurator create( Method getter, String group, String name, int slot )
+        {
+            Parameter.Type type = getter.getAnnotation( Parameter.Type.class );
+            Parameter.TypeConversion conversion = getter.getAnnotation( Parameter.TypeConversion.class );
+            if ( type != null && conversion != null )
+                throw new IllegalArgumentException( "Configuration interface method may not declare both "
+                                                    + "@Parameter.Type and @Parameter.TypeConversion." );
+            return create( type, conversion, Invoker.slot( slot, getter.getReturnType() ), getter.toString(),
+                           new Type[] { getter.getGenericReturnType() }, group, name,
+                           ResultHandler.get( MutationPolicy.class ) );
+        }
+
+        private static Configurator create( Parameter.Type type, Parameter.TypeConversion conversion,
+                                            Invoker invoker, String method, Type[] params, String group,
+                                            String name, ResultHandler result )
+        {
+            if ( params.length == 1 && erasure( params[0] ) == Supplier.class )
+            {
+                Type[] provided = { providedType( params[0] ) };
+                Configurator element = converting( type, conversion, invoker, method, provided, group, name,
+                                                   result );
+                return new ProviderConfigurator( element, invoker, method, new Class<?>[] { Supplier.class }, group,
+                                                 name, result );
+            }
+            return converting( type, conversion, invoker, method, params, group, name, result );
+        }
+
+        private static Configurator converting( Parameter.Type type, Parameter.TypeConversion conversion,
+                                                Invoker invoker, String method, Type[] generic, String group,
+                                                String name, ResultHandler result )
+        {
+            Class<?>[] params = new Class<?>[generic.length];
+            for ( int i = 0; i < params.length; i++ )
+            {
+                params[i] = erasure( generic[i] );
+            }
             if ( type != null )
             {
-                if ( conversion != null )
-                    throw new IllegalArgumentException( "Configuration interface method may not declare both "
-                                                        + "@Parameter.Type and @Parameter.TypeConversion." );
-                Conversion converter = type.value().conversionFor( method.getParameterTypes() );
+                Conversion converter = type.value().conversionFor( params );
+                if ( type.lazy() ) converter = SimpleParameterType.lazy( converter, params );
+                // an empty default means no default, the same as for generated descriptors
                 String defaultInput = type.defaultValue();
-                try
-                {
-                    if ( defaultInput == Parameter.Type.class.getDeclaredMethod( "defaultValue" ).getDefaultValue() )
-                    {
-                        defaultInput = converter.defaultInput();
-                    }
-                }
-                catch ( NoSuchMethodException ignored )
-                {
-                    // ignore
-                }
-                return new SimpleConfigurator( converter, defaultInput, method, group, name, result );
+                if ( "".equals( defaultInput ) ) defaultInput = converter.defaultInput();
+                return new SimpleConfigurator( converter, defaultInput, invoker, method, params, group, name,
+                                               result );
             }
             else if ( conversion != null )
             {
                 try
                 {
-                    return new CustomConfigurator( conversion.value().newInstance(), method, group, name, result );
+                    return new CustomConfigurator( conversion.value().newInstance(), invoker, method, params, group,
+                                                   name, result );
                 }
                 catch ( InstantiationException cause )
                 {
@@ -351,38 +1688,175 @@ public abstract class Configuration
             }
             else
             { // both are null => implicit simple type
-                SimpleParameterType.Conversion converter = SimpleParameterType.lookupConversion( method.getGenericParameterTypes() );
-                return new SimpleConfigurator( converter, converter.defaultInput(), method, group, name, result );
+                SimpleParameterType.Conversion converter = SimpleParameterType.lookupConversion( generic );
+                return new SimpleConfigurator( converter, converter.defaultInput(), invoker, method, params, group,
+                                               name, result );
+            }
+        }
+
+        private static Class<?> erasure( Type type )
+        {
+            if ( type instanceof Class<?> ) return (Class<?>) type;
+            if ( type instanceof ParameterizedType ) return (Class<?>) ( (ParameterizedType) type ).getRawType();
+            throw new IllegalArgumentException( "Cannot handle parameters of type: " + type );
+        }
+
+        private static Type providedType( Type supplier )
+        {
+            if ( supplier instanceof ParameterizedType )
+            {
+                Type provided = ( (ParameterizedType) supplier ).getActualTypeArguments()[0];
+                if ( provided instanceof Class<?> || provided instanceof ParameterizedType ) return provided;
+            }
+            throw new IllegalArgumentException( "Cannot determine the type provided by " + supplier );
+        }
+
+        static Configurator create( ParameterDescriptor descriptor )
+        {
+            ResultHandler result = ResultHandler.get( descriptor.result );
+            Invoker invoker = Invoker.create( descriptor );
+            String method = descriptor.toString();
+            if ( descriptor.provided != null )
+            {
+                Configurator element = create( descriptor, invoker, method, new Class<?>[] { descriptor.provided },
+                                               result );
+                return new ProviderConfigurator( element, invoker, method, descriptor.parameterTypes,
+                                                 descriptor.group, descriptor.name, result );
+            }
+            return create( descriptor, invoker, method, descriptor.parameterTypes, result );
+        }
+
+        private static Configurator create( ParameterDescriptor descriptor, Invoker invoker, String method,
+                                            Class<?>[] params, ResultHandler result )
+        {
+            SimpleParameterType type = descriptor.type();
+            ParameterConverter<?> converter = descriptor.converter();
+            if ( type != null )
+            {
+                Conversion conversion = type.conversionFor( params );
+                if ( descriptor.lazy() ) conversion = SimpleParameterType.lazy( conversion, params );
+                String defaultInput = descriptor.defaultValue();
+                if ( defaultInput == null ) defaultInput = conversion.defaultInput();
+                return new SimpleConfigurator( conversion, defaultInput, invoker, method, params, descriptor.group,
+                                               descriptor.name, result );
+            }
+            else if ( converter != null )
+            {
+                return new CustomConfigurator( converter, invoker, method, params, descriptor.group, descriptor.name,
+                                               result );
+            }
+            else
+            {
+                Conversion conversion = SimpleParameterType.lookupConversion( params, descriptor.element );
+                return new SimpleConfigurator( conversion, conversion.defaultInput(), invoker, method, params,
+                                               descriptor.group, descriptor.name, result );
             }
         }
 
         void update( Configuration config, Object target )
         {
-            apply( config, target, false );
+            invoke( target, resolve( config.current ) );
         }
 
-        void configure( Configuration config, Object target )
+        void configure( Configuration config, Object target, Converted values, Registrations registrations )
         {
-            apply( config, target, true );
+            ConfigurationEvents.Apply event = new ConfigurationEvents.Apply();
+            event.begin();
+            handler.handle( this, target, config, registrations, invoke( target, values ) );
+            if ( event.shouldCommit() )
+            {
+                event.group = group;
+                event.name = name;
+                event.target = target.getClass().getName();
+                event.commit();
+            }
         }
 
-        private void apply( Configuration config, Object target, boolean applyHandler )
+        private Object invoke( Object target, Converted values )
         {
-            Object result;
-            String value = config.get( group, name );
             try
             {
-                result = method.invoke( target, value == null ? defaultValue() : convert( value ) );
+                if ( values.arguments == null ) return invoker.invoke( target, values.primitive );
+                return invoker.invoke( target, values.arguments() );
+            }
+            catch ( RuntimeException e )
+            {
+                throw e;
+            }
+            catch ( Error e )
+            {
+                throw e;
+            }
+            catch ( Throwable e )
+            {
+                throw new IllegalStateException( "Configuration method " + method + " failed", e );
+            }
+        }
+
+        /**
+         * Get the converted arguments for the value of this parameter in a snapshot. The conversion of the most
+         * recently seen raw value is memoized, since the same configuration value is applied to every configured
+         * object until it is changed.
+         */
+        Converted resolve( Snapshot snapshot )
+        {
+            String value = snapshot.get( group, key );
+            Converted cached = converted;
+            if ( cached == null || !cached.convertedFrom( value ) )
+            {
+                converted = cached = counted( value );
             }
-            catch ( IllegalAccessException e )
+            return cached;
+        }
+
+        Converted counted( String value )
+        {
+            if ( !ConfigurationMetrics.ENABLED ) return conversionOf( value );
+            return counted( this, value );
+        }
+
+        /**
+         * Convert a value with the given configurator, counting the conversion in the metrics of this configurator.
+         */
+        final Converted counted( Configurator converter, String value )
+        {
+            Converted result;
+            try
             {
-                throw new Error( e );
+                result = converter.conversionOf( value );
             }
-            catch ( InvocationTargetException e )
+            catch ( RuntimeException failure )
             {
-                throw (RuntimeException) e.getTargetException(); // TODO: replace with safeCast()
+                conversionFailures.increment();
+                throw failure;
             }
-            if ( applyHandler ) handler.handle( this, target, config, result );
+            conversions.increment();
+            return result;
+        }
+
+        long conversions()
+        {
+            return conversions == null ? 0 : conversions.sum();
+        }
+
+        long conversionFailures()
+        {
+            return conversionFailures == null ? 0 : conversionFailures.sum();
+        }
+
+        Converted conversionOf( String value )
+        {
+            return new Converted( value, value == null ? defaultValue() : convert( value ) );
+        }
+
+        /**
+         * Convert the value in a snapshot, or the default value if the snapshot has no value, to report invalid
+         * values ahead of the first use of the parameter. The conversion is memoized. A parameter without a default
+         * is only invalid when it has no value either.
+         */
+        void validate( Snapshot snapshot )
+        {
+            resolve( snapshot );
         }
 
         abstract Object[] convert( String input );
@@ -390,12 +1864,75 @@ public abstract class Configuration
         abstract Object[] defaultValue();
     }
 
+    private static class Converted
+    {
+        private final String input;
+        /**
+         * The converted arguments, or <code>null</code> if the single argument is a specialized primitive.
+         */
+        private final Object[] arguments;
+        private final long primitive;
+        private final boolean mutable;
+
+        Converted( String input, long primitive )
+        {
+            this.input = input;
+            this.arguments = null;
+            this.primitive = primitive;
+            this.mutable = false;
+        }
+
+        Converted( String input, Object[] arguments )
+        {
+            this.input = input;
+            this.arguments = arguments;
+            this.primitive = 0;
+            boolean mutable = false;
+            for ( Object argument : arguments )
+            {
+                if ( argument != null && argument.getClass().isArray() ) mutable = true;
+            }
+            this.mutable = mutable;
+        }
+
+        boolean convertedFrom( String value )
+        {
+            return input == value || ( input != null && input.equals( value ) );
+        }
+
+        Object[] arguments()
+        {
+            if ( !mutable ) return arguments;
+            Object[] copy = arguments.clone();
+            for ( int i = 0; i < copy.length; i++ )
+            {
+                copy[i] = copyOf( copy[i] );
+            }
+            return copy;
+        }
+
+        private static Object copyOf( Object array )
+        {
+            if ( array instanceof Object[] ) return ( (Object[]) array ).clone();
+            if ( array instanceof int[] ) return ( (int[]) array ).clone();
+            if ( array instanceof long[] ) return ( (long[]) array ).clone();
+            if ( array instanceof double[] ) return ( (double[]) array ).clone();
+            if ( array instanceof boolean[] ) return ( (boolean[]) array ).clone();
+            if ( array instanceof byte[] ) return ( (byte[]) array ).clone();
+            if ( array instanceof short[] ) return ( (short[]) array ).clone();
+            if ( array instanceof float[] ) return ( (float[]) array ).clone();
+            if ( array instanceof char[] ) return ( (char[]) array ).clone();
+            return array;
+        }
+    }
+
     private enum ResultHandler
     {
         IGNORE( void.class, Void.class )
         {
             @Override
-            void handle( Configurator configurator, Object target, Configuration config, Object result )
+            void handle( Configurator configurator, Object target, Configuration config,
+                         Registrations registrations, Object result )
             {
                 // do nothing
             }
@@ -403,22 +1940,24 @@ public abstract class Configuration
         MUTATION( MutationPolicy.class )
         {
             @Override
-            void handle( Configurator configurator, Object target, Configuration config, Object result )
+            void handle( Configurator configurator, Object target, Configuration config,
+                         Registrations registrations, Object result )
             {
                 if ( result == null ) result = MutationPolicy.ON_NULL;
-                ( (MutationPolicy) result ).apply( config, target, configurator );
+                ( (MutationPolicy) result ).apply( config, registrations, target, configurator );
             }
         },
         ;
 
-        abstract void handle( Configurator configurator, Object target, Configuration config, Object result );
+        abstract void handle( Configurator configurator, Object target, Configuration config,
+                              Registrations registrations, Object result );
 
         static ResultHandler get( Class<?> resultType )
         {
             ResultHandler handler = handlers.get( resultType );
             if ( handler == null )
             {
-                System.err.println( "WARNING: ignoring results of type " + resultType ); // TODO: replace with logging
+                LOG.log( System.Logger.Level.WARNING, "ignoring results of type " + resultType );
                 handler = IGNORE;
             }
             return handler;
@@ -449,26 +1988,37 @@ public abstract class Configuration
     private static class SimpleConfigurator extends Configurator
     {
         private final SimpleParameterType.Conversion conversion;
+        private final SimpleParameterType.PrimitiveConversion primitive;
         private final String defaultInput;
 
-        SimpleConfigurator( SimpleParameterType.Conversion conversion, String defaultInput, Method method,
-                            String group, String name, ResultHandler handler )
+        SimpleConfigurator( SimpleParameterType.Conversion conversion, String defaultInput, Invoker invoker,
+                            String method, Class<?>[] parameterTypes, String group, String name,
+                            ResultHandler handler )
         {
-            super( method, group, name, handler );
+            super( invoker, method, parameterTypes, group, name, handler );
             this.conversion = conversion;
+            this.primitive = invoker.specialized()
+                    ? SimpleParameterType.primitiveConversion( conversion, parameterTypes ) : null;
             this.defaultInput = defaultInput;
         }
 
+        @Override
+        Converted conversionOf( String value )
+        {
+            if ( primitive == null ) return super.conversionOf( value );
+            return new Converted( value, primitive.performOn( value == null ? defaultInput : value ) );
+        }
+
         @Override
         Object[] convert( String input )
         {
-            return conversion.performOn( input, method );
+            return conversion.performOn( input, parameterTypes );
         }
 
         @Override
         Object[] defaultValue()
         {
-            return conversion.performOn( defaultInput, method );
+            return conversion.performOn( defaultInput, parameterTypes );
         }
     }
 
@@ -476,10 +2026,10 @@ public abstract class Configuration
     {
         private final ParameterConverter<?> converter;
 
-        CustomConfigurator( ParameterConverter<?> converter, Method method, String group, String name,
-                            ResultHandler handler )
+        CustomConfigurator( ParameterConverter<?> converter, Invoker invoker, String method,
+                            Class<?>[] parameterTypes, String group, String name, ResultHandler handler )
         {
-            super( method, group, name, handler );
+            super( invoker, method, parameterTypes, group, name, handler );
             this.converter = converter;
         }
 
@@ -495,4 +2045,92 @@ public abstract class Configuration
             return new Object[] { converter.defaultValue() };
         }
     }
+
+    /**
+     * Configures a parameter that is declared as a {@link Supplier} of the converted value. The conversion is
+     * deferred until the value is first requested, and each raw value gets its own supplier, so that the conversion
+     * is memoized until the value changes.
+     */
+    private static class ProviderConfigurator extends Configurator
+    {
+        private final Configurator element;
+
+        ProviderConfigurator( Configurator element, Invoker invoker, String method, Class<?>[] parameterTypes,
+                              String group, String name, ResultHandler handler )
+        {
+            super( invoker, method, parameterTypes, group, name, handler );
+            this.element = element;
+        }
+
+        @Override
+        Object[] convert( String input )
+        {
+            return new Object[] { new Deferred( this, input ) };
+        }
+
+        @Override
+        Object[] defaultValue()
+        {
+            return new Object[] { new Deferred( this, null ) };
+        }
+
+        @Override
+        Converted counted( String value )
+        {
+            // creating the supplier is not a conversion, the deferred conversion is counted when it is performed
+            return conversionOf( value );
+        }
+
+        @Override
+        void validate( Snapshot snapshot )
+        {
+            element.validate( snapshot );
+            super.validate( snapshot );
+        }
+
+        Converted provide( String input )
+        {
+            return ConfigurationMetrics.ENABLED ? counted( element, input ) : element.conversionOf( input );
+        }
+    }
+
+    /**
+     * A supplier is shared by all targets of the same raw value, so every target gets its own copy of a mutable
+     * converted value, such as an array.
+     */
+    private static class Deferred implements Supplier<Object>
+    {
+        private final ProviderConfigurator provider;
+        private final String input;
+        private volatile Converted converted;
+
+        Deferred( ProviderConfigurator provider, String input )
+        {
+            this.provider = provider;
+            this.input = input;
+        }
+
+        @Override
+        public Object get()
+        {
+            Converted result = converted;
+            if ( result == null )
+            {
+                synchronized ( this )
+                {
+                    if ( ( result = converted ) == null )
+                    {
+                        converted = result = provider.provide( input );
+                    }
+                }
+            }
+            return result.arguments()[0];
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Supplier[" + provider.method + ( input == null ? "" : " = " + input ) + "]";
+        }
+    }
 }
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of configuration and reconfiguration, to correlate slow configuration and restarts
+ * with garbage collection and thread activity in a recording.
+ *
+ * All events are disabled by default. Enable them by name in a <code>.jfc</code> settings file, or with
+ * {@link jdk.jfr.Recording#enable(String)}. A disabled event is never committed, and its allocation is removed by
+ * escape analysis.
+ */
+final class ConfigurationEvents
+{
+    private static final String CATEGORY = "Neo4j";
+
+    private ConfigurationEvents()
+    {
+        // no instances
+    }
+
+    @Name( "org.neo4j.config.Configure" )
+    @Label( "Configure" )
+    @Description( "Configuration of an object with all parameters of its configuration interfaces" )
+    @Category( { CATEGORY, "Configuration" } )
+    @Enabled( false )
+    @StackTrace( false )
+    static final class Configure extends Event
+    {
+        @Label( "Target" )
+        String target;
+        @Label( "Parameters" )
+        int parameters;
+    }
+
+    @Name( "org.neo4j.config.Apply" )
+    @Label( "Apply Parameter" )
+    @Description( "Application of the value of one parameter to a configured object" )
+    @Category( { CATEGORY, "Configuration" } )
+    @Enabled( false )
+    @StackTrace( false )
+    static final class Apply extends Event
+    {
+        @Label( "Group" )
+        String group;
+        @Label( "Name" )
+        String name;
+        @Label( "Target" )
+        String target;
+    }
+
+    @Name( "org.neo4j.config.Change" )
+    @Label( "Change" )
+    @Description( "A change of the configuration, from the update until the changed values are published, staged for "
+                  + "restart, and dispatched to the objects that apply them" )
+    @Category( { CATEGORY, "Configuration" } )
+    @Enabled( false )
+    static final class Change extends Event
+    {
+        @Label( "Groups" )
+        String groups;
+        @Label( "Keys" )
+        @Description( "The changed parameters, as group.name" )
+        String keys;
+        @Label( "Listeners" )
+        int listeners;
+        @Label( "Require Restart" )
+        boolean requireRestart;
+    }
+
+    @Name( "org.neo4j.config.Restart" )
+    @Label( "Restart" )
+    @Description( "A restart caused by a change of a parameter that can only change on restart" )
+    @Category( { CATEGORY, "Configuration" } )
+    @Enabled( false )
+    static final class Restart extends Event
+    {
+        @Label( "Groups" )
+        String groups;
+        @Label( "Keys" )
+        @Description( "The changed parameters that required the restart, as group.name" )
+        String keys;
+        @Label( "Scopes" )
+        @Description( "The restarted scopes, in restart order" )
+        String scopes;
+    }
+}
@@ -19,8 +19,12 @@
  */
 package org.neo4j.config;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 public abstract class ConfigurationManager
 {
@@ -37,17 +41,52 @@ public abstract class ConfigurationManager
         ( this.config = config ).addManager( this );
     }
 
-    protected final void update( final String modifiedGroup, Map<String, String> update )
+    protected final Future<Void> update( String modifiedGroup, Map<String, String> update )
     {
-        final Map<String, String> changes = new HashMap<String, String>( update );
-        update( new ConfigurationUpdate()
+        return update( Collections.singletonMap( modifiedGroup, update ) );
+    }
+
+    /**
+     * Update parameters in any number of configuration groups. All changes are published atomically, in a single
+     * new {@link Configuration.Snapshot snapshot} of the configuration.
+     *
+     * @param update the changed values, by parameter name, by group.
+     * @return a future that completes when all affected objects have applied the changes.
+     * @see Configuration#listenerDispatch()
+     */
+    protected final Future<Void> update( Map<String, Map<String, String>> update )
+    {
+        final Map<String, Map<String, String>> changes = new HashMap<String, Map<String, String>>();
+        for ( Map.Entry<String, Map<String, String>> group : update.entrySet() )
         {
+            changes.put( group.getKey(), new HashMap<String, String>( group.getValue() ) );
+        }
+        return update( new ConfigurationUpdate()
+        {
+            @Override
+            Collection<String> groups()
+            {
+                return new ArrayList<String>( changes.keySet() );
+            }
+
+            @Override
+            Collection<String> names( String group )
+            {
+                Map<String, String> values = changes.get( group );
+                if ( values != null )
+                {
+                    return new ArrayList<String>( values.keySet() );
+                }
+                return Collections.emptyList();
+            }
+
             @Override
             String pop( String group, String name )
             {
-                if ( group.equals( modifiedGroup ) )
+                Map<String, String> values = changes.get( group );
+                if ( values != null )
                 {
-                    return changes.remove( name );
+                    return values.remove( name );
                 }
                 return null;
             }
@@ -55,15 +94,14 @@ public abstract class ConfigurationManager
             @Override
             void done()
             {
-                // TODO Auto-generated method stub
-
+                // the changes were copied for this update only, there is nothing to release
             }
         } );
     }
 
-    protected final void update( ConfigurationUpdate update )
+    protected final Future<Void> update( ConfigurationUpdate update )
     {
-        config.change( update );
+        return config.change( update );
     }
 
     protected static abstract class ConfigurationUpdate
@@ -73,10 +111,21 @@ public abstract class ConfigurationManager
             // limit the subclasses
         }
 
+        /**
+         * the groups that this update holds changes for
+         */
+        abstract Collection<String> groups();
+
+        /**
+         * the names of the parameters in the given group that this update holds changes for
+         */
+        abstract Collection<String> names( String group );
+
         abstract String pop( String group, String name );
 
         /**
-         * invoked when all mutable configurations are {@link #pop(String, String) popped} from this
+         * invoked when all changes have been {@link #pop(String, String) popped} from this, before they are
+         * published, so that an update that holds resources can release them
          */
         abstract void done();
     }
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the hot paths of a {@link Configuration}, exposed as a platform MXBean named
+ * <code>org.neo4j.config:type=Configuration,name="&lt;class&gt;-&lt;n&gt;"</code>.
+ *
+ * Metrics are disabled unless the <code>org.neo4j.config.metrics</code> system property is <code>true</code>. The
+ * property is read once, into a constant, so that when metrics are disabled the checks on the hot paths are removed
+ * by the JIT compiler, and nothing is measured, allocated or registered.
+ *
+ * The MXBean only references its configuration weakly, and is unregistered when the configuration is garbage
+ * collected, or when it is {@link #unregister() unregistered} explicitly.
+ *
+ * @see Configuration#metrics()
+ */
+public final class ConfigurationMetrics implements ConfigurationMetricsMXBean
+{
+    static final boolean ENABLED = Boolean.getBoolean( "org.neo4j.config.metrics" );
+    private static final AtomicInteger instances = new AtomicInteger();
+    private final WeakReference<Configuration> configuration;
+    private final ObjectName name;
+    private final Cleaner.Cleanable registration;
+    /**
+     * The configure latencies by class name, the classes themselves are not referenced so that they can be unloaded.
+     */
+    private final ConcurrentMap<String, LatencyHistogram> configure =
+            new ConcurrentHashMap<String, LatencyHistogram>();
+    private final ConcurrentMap<String, LatencyHistogram> initialize =
+            new ConcurrentHashMap<String, LatencyHistogram>();
+    private final LatencyHistogram changeDispatch = new LatencyHistogram(), restart = new LatencyHistogram();
+
+    private ConfigurationMetrics( Configuration configuration, ObjectName name )
+    {
+        this.configuration = new WeakReference<Configuration>( configuration );
+        this.name = name;
+        this.registration = Unregistration.CLEANER.register( configuration, new Unregistration( name ) );
+    }
+
+    static ConfigurationMetrics register( Configuration configuration )
+    {
+        ObjectName name;
+        try
+        {
+            name = new ObjectName( "org.neo4j.config:type=Configuration,name=" + ObjectName.quote(
+                    configuration.getClass().getName() + "-" + instances.incrementAndGet() ) );
+        }
+        catch ( JMException e )
+        {
+            throw new IllegalStateException( "Could not name configuration metrics", e );
+        }
+        ConfigurationMetrics metrics = new ConfigurationMetrics( configuration, name );
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean( metrics, name );
+        }
+        catch ( JMException e )
+        {
+            throw new IllegalStateException( "Could not register configuration metrics as " + name, e );
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the name this MXBean is registered under.
+     */
+    public ObjectName name()
+    {
+        return name;
+    }
+
+    /**
+     * Remove this MXBean from the platform MBean server, typically when the configuration is no longer used.
+     */
+    public void unregister()
+    {
+        registration.clean();
+    }
+
+    void configured( Class<?> type, long nanos )
+    {
+        histogram( configure, type.getName() ).record( nanos );
+    }
+
+    void initialized( String group, long nanos )
+    {
+        histogram( initialize, group ).record( nanos );
+    }
+
+    void restarted( long nanos )
+    {
+        restart.record( nanos );
+    }
+
+    void dispatching( CompletableFuture<Void> dispatch, final long start )
+    {
+        dispatch.whenComplete( new BiConsumer<Void, Throwable>()
+        {
+            @Override
+            public void accept( Void result, Throwable failure )
+            {
+                changeDispatch.record( System.nanoTime() - start );
+            }
+        } );
+    }
+
+    private static LatencyHistogram histogram( ConcurrentMap<String, LatencyHistogram> histograms, String key )
+    {
+        LatencyHistogram histogram = histograms.get( key );
+        if ( histogram == null )
+        {
+            LatencyHistogram other = histograms.putIfAbsent( key, histogram = new LatencyHistogram() );
+            if ( other != null ) histogram = other;
+        }
+        return histogram;
+    }
+
+    @Override
+    public Map<String, Latency> getConfigure()
+    {
+        Map<String, Latency> result = new TreeMap<String, Latency>();
+        for ( Map.Entry<String, LatencyHistogram> entry : configure.entrySet() )
+        {
+            result.put( entry.getKey(), entry.getValue().snapshot() );
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getConversions()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for ( Configuration.Configurator configurator : configurators() )
+        {
+            result.put( configurator.method, configurator.conversions() );
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getConversionFailures()
+    {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for ( Configuration.Configurator configurator : configurators() )
+        {
+            result.put( configurator.method, configurator.conversionFailures() );
+        }
+        return result;
+    }
+
+    private Collection<Configuration.Configurator> configurators()
+    {
+        Configuration configuration = this.configuration.get();
+        if ( configuration == null ) return Collections.emptyList();
+        return configuration.countedConfigurators();
+    }
+
+    @Override
+    public Map<String, Latency> getInitialize()
+    {
+        Map<String, Latency> result = new TreeMap<String, Latency>();
+        for ( Map.Entry<String, LatencyHistogram> entry : initialize.entrySet() )
+        {
+            result.put( entry.getKey(), entry.getValue().snapshot() );
+        }
+        return result;
+    }
+
+    @Override
+    public Latency getChangeDispatch()
+    {
+        return changeDispatch.snapshot();
+    }
+
+    @Override
+    public Map<String, Integer> getListeners()
+    {
+        Configuration configuration = this.configuration.get();
+        if ( configuration == null ) return new TreeMap<String, Integer>();
+        return configuration.listenerCounts();
+    }
+
+    @Override
+    public Latency getRestart()
+    {
+        return restart.snapshot();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConfigurationMetrics[" + name + "]";
+    }
+
+    /**
+     * Unregisters the MXBean of a configuration, when the configuration is garbage collected or explicitly. Must not
+     * reference the configuration, or the configuration would never be collected.
+     */
+    private static class Unregistration implements Runnable
+    {
+        static final Cleaner CLEANER = Cleaner.create();
+        private final ObjectName name;
+
+        Unregistration( ObjectName name )
+        {
+            this.name = name;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean( name );
+            }
+            catch ( JMException e )
+            {
+                // already unregistered, or never registered
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.Map;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * The management interface of {@link ConfigurationMetrics}.
+ */
+public interface ConfigurationMetricsMXBean
+{
+    /**
+     * @return the calls to {@link Configuration#configure(Object)}, by the name of the class of the target.
+     */
+    Map<String, Latency> getConfigure();
+
+    /**
+     * @return the number of values converted, by configuration method.
+     */
+    Map<String, Long> getConversions();
+
+    /**
+     * @return the number of values that failed to convert, by configuration method.
+     */
+    Map<String, Long> getConversionFailures();
+
+    /**
+     * @return the initialization of each configuration group, by group.
+     */
+    Map<String, Latency> getInitialize();
+
+    /**
+     * @return the time from a change of the configuration until every affected object has applied it.
+     */
+    Latency getChangeDispatch();
+
+    /**
+     * @return the number of registered change listeners, by <code>group.parameter</code>.
+     */
+    Map<String, Integer> getListeners();
+
+    /**
+     * @return the restarts caused by configuration changes.
+     */
+    Latency getRestart();
+
+    /**
+     * The statistics of a latency histogram. The percentiles are approximate, within a factor of two. Named
+     * constructor parameters let MXBean proxies reconstruct it from its open type.
+     */
+    final class Latency
+    {
+        private final long count, totalNanos, maxNanos, medianNanos, p99Nanos;
+
+        @ConstructorParameters( { "count", "totalNanos", "maxNanos", "medianNanos", "p99Nanos" } )
+        public Latency( long count, long totalNanos, long maxNanos, long medianNanos, long p99Nanos )
+        {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.medianNanos = medianNanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        public long getMaxNanos()
+        {
+            return maxNanos;
+        }
+
+        public long getMedianNanos()
+        {
+            return medianNanos;
+        }
+
+        public long getP99Nanos()
+        {
+            return p99Nanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Latency[count=" + count + ",total=" + totalNanos + "ns,median=" + medianNanos + "ns,p99="
+                   + p99Nanos + "ns,max=" + maxNanos + "ns]";
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the values of all configuration groups in one pass.
+ *
+ * A {@link Configuration} created with a source loads it once, and then looks up the initial values of every group
+ * in the loaded values, instead of {@link Configuration#initialize(String, Map) initializing} each group separately.
+ */
+public abstract class ConfigurationSource
+{
+    /**
+     * Load the values of all configuration groups.
+     *
+     * @return the values, by parameter name, by group.
+     */
+    protected abstract Map<String, Map<String, String>> load();
+
+    /**
+     * Load the values of all configuration groups for a configuration, that problems which do not prevent loading
+     * are {@link Configuration#warning(String, Throwable) reported} to.
+     */
+    Map<String, Map<String, String>> load( Configuration config )
+    {
+        return load();
+    }
+
+    /**
+     * A source that reads all <code>.conf</code> and <code>.properties</code> files in a directory, such as a
+     * <code>conf.d</code> directory, in parallel in the common fork join pool.
+     *
+     * @see #directory(Path, ExecutorService)
+     */
+    public static ConfigurationSource directory( Path directory )
+    {
+        return directory( directory, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * A source that reads all <code>.conf</code> and <code>.properties</code> files in a directory, one file per
+     * task in the given executor. The files are in properties format, with keys of the form
+     * <code>group.name</code>. When several files define the same parameter, the file that comes last by name wins.
+     *
+     * @param directory the directory to read the configuration files of.
+     * @param executor the executor to read the files in.
+     */
+    public static ConfigurationSource directory( Path directory, ExecutorService executor )
+    {
+        return new DirectorySource( directory, executor );
+    }
+
+    /**
+     * A source that reads all configuration files in a directory like {@link #directory(Path)} does, but keeps the
+     * merged values in a binary snapshot file, and reads the snapshot instead when the configuration files have not
+     * changed since it was written.
+     *
+     * @see #snapshot(Path, Path, ExecutorService)
+     */
+    public static ConfigurationSource snapshot( Path directory, Path snapshot )
+    {
+        return snapshot( directory, snapshot, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * A source that reads all configuration files in a directory like {@link #directory(Path, ExecutorService)} does,
+     * but keeps the merged values in a binary snapshot file, and reads the snapshot instead when the configuration
+     * files have not changed since it was written.
+     *
+     * The snapshot is memory mapped, and records a SHA-256 digest of the configuration files it was written from. When
+     * the digest does not match, or the snapshot is missing or corrupt, the configuration files are read and a new
+     * snapshot is written.
+     *
+     * @param directory the directory to read the configuration files of.
+     * @param snapshot the snapshot file, typically outside of the directory.
+     * @param executor the executor to read the files in when the snapshot is stale.
+     */
+    public static ConfigurationSource snapshot( Path directory, Path snapshot, ExecutorService executor )
+    {
+        return new SnapshotSource( directory, snapshot, executor );
+    }
+
+    static List<Path> configurationFiles( Path directory ) throws IOException
+    {
+        List<Path> files = new ArrayList<Path>();
+        try ( DirectoryStream<Path> entries = Files.newDirectoryStream( directory ) )
+        {
+            for ( Path file : entries )
+            {
+                if ( isConfigurationFile( file ) ) files.add( file );
+            }
+        }
+        Collections.sort( files );
+        return files;
+    }
+
+    static boolean isConfigurationFile( Path file )
+    {
+        String name = file.getFileName().toString();
+        return ( name.endsWith( ".conf" ) || name.endsWith( ".properties" ) ) && Files.isRegularFile( file );
+    }
+
+    /**
+     * Read a configuration file, and parse it. The file is decoded as it is parsed, without holding its content in
+     * memory.
+     *
+     * @param config the configuration to report ignored keys to, or <code>null</code> to ignore them silently.
+     */
+    static Map<String, Map<String, String>> read( Path file, Configuration config ) throws IOException
+    {
+        try ( Reader input = new InputStreamReader( Files.newInputStream( file ), StandardCharsets.UTF_8 ) )
+        {
+            return parse( file, input, config );
+        }
+    }
+
+    /**
+     * Parse a configuration file into values by parameter name by group.
+     *
+     * @param config the configuration to report ignored keys to, or <code>null</code> to ignore them silently.
+     */
+    static Map<String, Map<String, String>> parse( Path file, Reader input, Configuration config ) throws IOException
+    {
+        Properties properties = new Properties();
+        properties.load( input );
+        Map<String, Map<String, String>> result = new HashMap<String, Map<String, String>>();
+        for ( String key : properties.stringPropertyNames() )
+        {
+            int dot = key.lastIndexOf( '.' );
+            if ( dot <= 0 || dot == key.length() - 1 )
+            {
+                if ( config != null ) config.warning( "ignoring configuration key without group in " + file + ": "
+                                                      + key, null );
+                continue;
+            }
+            String group = key.substring( 0, dot ).toLowerCase();
+            Map<String, String> values = result.get( group );
+            if ( values == null ) result.put( group, values = new HashMap<String, String>() );
+            values.put( key.substring( dot + 1 ).toLowerCase(), properties.getProperty( key ) );
+        }
+        return result;
+    }
+
+    /**
+     * Merge the values of one configuration file into the values of all files.
+     */
+    static void merge( Map<String, Map<String, String>> target, Map<String, Map<String, String>> source )
+    {
+        for ( Map.Entry<String, Map<String, String>> group : source.entrySet() )
+        {
+            Map<String, String> values = target.get( group.getKey() );
+            if ( values == null ) target.put( group.getKey(), values = new HashMap<String, String>() );
+            values.putAll( group.getValue() );
+        }
+    }
+
+    static List<Path> listFiles( Path directory )
+    {
+        try
+        {
+            return configurationFiles( directory );
+        }
+        catch ( IOException cause )
+        {
+            throw new IllegalStateException( "Could not list configuration files in " + directory, cause );
+        }
+    }
+
+    /**
+     * Read configuration files in parallel, and merge them in the given order.
+     */
+    static Map<String, Map<String, String>> readAll( List<Path> files, ExecutorService executor,
+                                                     final Configuration config )
+    {
+        List<Future<Map<String, Map<String, String>>>> parsed =
+                new ArrayList<Future<Map<String, Map<String, String>>>>();
+        for ( final Path file : files )
+        {
+            parsed.add( executor.submit( new Callable<Map<String, Map<String, String>>>()
+            {
+                @Override
+                public Map<String, Map<String, String>> call() throws IOException
+                {
+                    return read( file, config );
+                }
+            } ) );
+        }
+        Map<String, Map<String, String>> result = new HashMap<String, Map<String, String>>();
+        for ( int i = 0; i < files.size(); i++ )
+        {
+            try
+            {
+                merge( result, parsed.get( i ).get() );
+            }
+            catch ( InterruptedException cause )
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "Interrupted while reading " + files.get( i ), cause );
+            }
+            catch ( ExecutionException cause )
+            {
+                throw new IllegalStateException( "Could not read configuration file " + files.get( i ),
+                        cause.getCause() );
+            }
+        }
+        return result;
+    }
+
+    private static class DirectorySource extends ConfigurationSource
+    {
+        private final Path directory;
+        private final ExecutorService executor;
+
+        DirectorySource( Path directory, ExecutorService executor )
+        {
+            this.directory = directory;
+            this.executor = executor;
+        }
+
+        @Override
+        protected Map<String, Map<String, String>> load()
+        {
+            return load( null );
+        }
+
+        @Override
+        Map<String, Map<String, String>> load( Configuration config )
+        {
+            return readAll( listFiles( directory ), executor, config );
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ConfigurationSource[" + directory + "]";
+        }
+    }
+
+    private static class SnapshotSource extends ConfigurationSource
+    {
+        private final Path directory;
+        private final Path snapshot;
+        private final ExecutorService executor;
+
+        SnapshotSource( Path directory, Path snapshot, ExecutorService executor )
+        {
+            this.directory = directory;
+            this.snapshot = snapshot;
+            this.executor = executor;
+        }
+
+        @Override
+        protected Map<String, Map<String, String>> load()
+        {
+            return load( null );
+        }
+
+        @Override
+        Map<String, Map<String, String>> load( Configuration config )
+        {
+            List<Path> files = listFiles( directory );
+            byte[] checksum;
+            try
+            {
+                checksum = SnapshotFile.checksum( files );
+                Map<String, Map<String, String>> values = SnapshotFile.read( snapshot, checksum );
+                if ( values != null ) return values;
+            }
+            catch ( IOException cause )
+            {
+                throw new IllegalStateException( "Could not read configuration snapshot " + snapshot, cause );
+            }
+            Map<String, Map<String, String>> values = readAll( files, executor, config );
+            try
+            {
+                SnapshotFile.write( snapshot, checksum, values );
+            }
+            catch ( IOException cause )
+            {
+                // the configuration files are read again next time
+                if ( config != null ) config.warning( "could not write configuration snapshot " + snapshot, cause );
+            }
+            return values;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ConfigurationSource[" + directory + ", snapshot=" + snapshot + "]";
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A {@link Configuration} read from the configuration files in a directory.
+ *
+ * @see ConfigurationSource#directory(Path)
+ */
+public abstract class FileConfiguration extends Configuration
+{
+    private final Path directory;
+
+    /**
+     * @param directory the directory to read the configuration files of.
+     */
+    protected FileConfiguration( Path directory )
+    {
+        super( ConfigurationSource.directory( directory ) );
+        this.directory = directory;
+    }
+
+    /**
+     * @param directory the directory to read the configuration files of.
+     * @param snapshot the binary snapshot to start from when the configuration files have not changed.
+     * @see ConfigurationSource#snapshot(Path, Path)
+     */
+    protected FileConfiguration( Path directory, Path snapshot )
+    {
+        super( ConfigurationSource.snapshot( directory, snapshot ) );
+        this.directory = directory;
+    }
+
+    /**
+     * @return the directory this configuration is read from.
+     */
+    public final Path directory()
+    {
+        return directory;
+    }
+
+    /**
+     * Start watching the configuration files for changes, and update this configuration when they change.
+     *
+     * @return the watcher, {@link FileWatcher#close() close} it to stop watching.
+     * @throws IOException if the directory could not be watched.
+     */
+    public final FileWatcher watch() throws IOException
+    {
+        return new FileWatcher( this, directory );
+    }
+}
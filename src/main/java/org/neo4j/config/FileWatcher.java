@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the configuration files in a directory, and updates a {@link Configuration} when they change.
+ *
+ * Only the files that changed are read again, and only the parameters whose values differ from the current values of
+ * the configuration, or from the values {@link Configuration#pendingRestart() pending restart}, are
+ * {@link ConfigurationManager#update(Map) updated}, so that unrelated listeners are not notified, and no restart is
+ * triggered unless a parameter that requires one actually changed. Parameters that are removed from the files keep
+ * their current value.
+ */
+public final class FileWatcher extends ConfigurationManager implements Closeable
+{
+    /**
+     * The time to wait for more changes after a change, editors often write a file in several steps.
+     */
+    private static final long SETTLE_MILLIS = 50;
+    private final Configuration config;
+    private final Path directory;
+    private final WatchService watcher;
+    private final Map<Path, Map<String, Map<String, String>>> files =
+            new TreeMap<Path, Map<String, Map<String, String>>>();
+
+    FileWatcher( Configuration config, Path directory ) throws IOException
+    {
+        super( config );
+        this.config = config;
+        this.directory = directory;
+        this.watcher = directory.getFileSystem().newWatchService();
+        directory.register( watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE );
+        for ( Path file : ConfigurationSource.configurationFiles( directory ) )
+        {
+            files.put( file, ConfigurationSource.read( file, config ) );
+        }
+        Thread thread = new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                watch();
+            }
+        }, "Configuration watcher for " + directory );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    /**
+     * Stop watching the configuration files.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            watcher.close();
+        }
+        finally
+        {
+            config.removeManager( this );
+        }
+    }
+
+    private void watch()
+    {
+        try
+        {
+            for ( ;; )
+            {
+                Set<Path> changed = new HashSet<Path>();
+                WatchKey key = watcher.take();
+                do
+                {
+                    for ( WatchEvent<?> event : key.pollEvents() )
+                    {
+                        if ( event.context() instanceof Path )
+                        {
+                            changed.add( directory.resolve( (Path) event.context() ) );
+                        }
+                    }
+                    if ( !key.reset() ) return;
+                }
+                while ( ( key = watcher.poll( SETTLE_MILLIS, TimeUnit.MILLISECONDS ) ) != null );
+                try
+                {
+                    reload( changed );
+                }
+                catch ( RuntimeException failure )
+                {
+                    config.warning( "failed to reload configuration from " + directory, failure );
+                }
+            }
+        }
+        catch ( InterruptedException stop )
+        {
+            // stop watching
+        }
+        catch ( ClosedWatchServiceException stop )
+        {
+            // stop watching
+        }
+    }
+
+    private void reload( Set<Path> changed )
+    {
+        Map<String, Set<String>> affected = new HashMap<String, Set<String>>();
+        for ( Path file : changed )
+        {
+            Map<String, Map<String, String>> before = files.remove( file );
+            if ( before != null ) addKeys( affected, before );
+            if ( !ConfigurationSource.isConfigurationFile( file ) || !Files.exists( file ) ) continue;
+            Map<String, Map<String, String>> after;
+            try
+            {
+                after = ConfigurationSource.read( file, config );
+            }
+            catch ( IOException cause )
+            {
+                // the file is probably being written, the next event will pick it up
+                if ( before != null ) files.put( file, before );
+                continue;
+            }
+            files.put( file, after );
+            addKeys( affected, after );
+        }
+        Map<String, Map<String, String>> values = new HashMap<String, Map<String, String>>();
+        for ( Map<String, Map<String, String>> content : files.values() )
+        {
+            ConfigurationSource.merge( values, content );
+        }
+        Configuration.Snapshot current = config.snapshot();
+        Map<String, Map<String, String>> pending = config.pendingRestart();
+        Map<String, Map<String, String>> update = new HashMap<String, Map<String, String>>();
+        for ( Map.Entry<String, Set<String>> group : affected.entrySet() )
+        {
+            Map<String, String> groupValues = values.get( group.getKey() );
+            if ( groupValues == null ) continue;
+            for ( String name : group.getValue() )
+            {
+                String value = groupValues.get( name );
+                if ( value == null ) continue;
+                Map<String, String> pendingValues = pending.get( group.getKey() );
+                String before = pendingValues != null && pendingValues.containsKey( name ) ? pendingValues.get( name )
+                        : current.get( group.getKey(), name );
+                if ( value.equals( before ) ) continue;
+                Map<String, String> groupUpdate = update.get( group.getKey() );
+                if ( groupUpdate == null ) update.put( group.getKey(), groupUpdate = new HashMap<String, String>() );
+                groupUpdate.put( name, value );
+            }
+        }
+        if ( !update.isEmpty() ) update( update );
+    }
+
+    private static void addKeys( Map<String, Set<String>> keys, Map<String, Map<String, String>> content )
+    {
+        for ( Map.Entry<String, Map<String, String>> group : content.entrySet() )
+        {
+            Set<String> names = keys.get( group.getKey() );
+            if ( names == null ) keys.put( group.getKey(), names = new TreeSet<String>() );
+            names.addAll( group.getValue().keySet() );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FileWatcher[" + directory + "]";
+    }
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Invokes the single method of a configuration interface on a target object.
+ *
+ * The method handle is resolved and adapted once, when the {@link Configuration.Configurator} is created, to a
+ * fixed erased shape for the arity of the method. Each invocation is then an exact invocation of that shape,
+ * without the access checks and argument array unpacking of {@link Method#invoke(Object, Object...)}.
+ */
+abstract class Invoker
+{
+    abstract Object invoke( Object target, Object[] args ) throws Throwable;
+
+    /**
+     * Invoke a method with a single {@link #isSpecialized(Class) specialized} primitive parameter, without boxing.
+     *
+     * @param value the argument, encoded as by {@link #encode(Class, Object)}.
+     */
+    Object invoke( Object target, long value ) throws Throwable
+    {
+        throw new UnsupportedOperationException( this + " does not take a primitive argument" );
+    }
+
+    /**
+     * @return <code>true</code> if {@link #invoke(Object, long)} is supported.
+     */
+    boolean specialized()
+    {
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> for the primitive parameter types that are passed without boxing: <code>int</code>,
+     *         <code>long</code>, <code>double</code> and <code>boolean</code>.
+     */
+    static boolean isSpecialized( Class<?> type )
+    {
+        return type == int.class || type == long.class || type == double.class || type == boolean.class;
+    }
+
+    /**
+     * Encode a boxed value of a specialized primitive type: integers as their value, doubles as their raw bits, and
+     * booleans as one or zero.
+     */
+    static long encode( Class<?> type, Object value )
+    {
+        if ( type == double.class ) return Double.doubleToRawLongBits( ( (Double) value ).doubleValue() );
+        if ( type == boolean.class ) return ( (Boolean) value ).booleanValue() ? 1 : 0;
+        return ( (Number) value ).longValue();
+    }
+
+    /**
+     * Decode a value encoded by {@link #encode(Class, Object)} to its boxed form.
+     */
+    static Object decode( Class<?> type, long value )
+    {
+        if ( type == int.class ) return Integer.valueOf( (int) value );
+        if ( type == long.class ) return Long.valueOf( value );
+        if ( type == double.class ) return Double.valueOf( Double.longBitsToDouble( value ) );
+        return Boolean.valueOf( value != 0 );
+    }
+
+    static Invoker create( Method method )
+    {
+        MethodHandle handle;
+        try
+        {
+            method.setAccessible( true );
+        }
+        catch ( RuntimeException notAccessible )
+        {
+            // try the lookup anyhow, it works for public interfaces
+        }
+        try
+        {
+            handle = MethodHandles.lookup().unreflect( method );
+        }
+        catch ( IllegalAccessException cause )
+        {
+            throw new IllegalArgumentException( "Configuration method not accessible: " + method, cause );
+        }
+        Class<?>[] params = method.getParameterTypes();
+        int arity = params.length;
+        if ( arity == 1 && isSpecialized( params[0] ) )
+        {
+            MethodHandle typed = handle.asType( MethodType.methodType( Object.class, Object.class, params[0] ) );
+            if ( params[0] == int.class ) return new IntUnary( typed );
+            if ( params[0] == long.class ) return new LongUnary( typed );
+            if ( params[0] == double.class ) return new DoubleUnary( typed );
+            return new BooleanUnary( typed );
+        }
+        switch ( arity )
+        {
+        case 1:
+            return new Unary( handle.asType( MethodType.genericMethodType( 2 ) ) );
+        case 2:
+            return new Binary( handle.asType( MethodType.genericMethodType( 3 ) ) );
+        default:
+            return new Spreading( handle.asSpreader( Object[].class, arity ).asType(
+                    MethodType.methodType( Object.class, Object.class, Object[].class ) ) );
+        }
+    }
+
+    static Invoker create( final ParameterDescriptor descriptor )
+    {
+        final boolean specialized =
+                descriptor.parameterTypes.length == 1 && isSpecialized( descriptor.parameterTypes[0] );
+        return new Invoker()
+        {
+            @Override
+            Object invoke( Object target, Object[] args ) throws Throwable
+            {
+                return descriptor.invoke( target, args );
+            }
+
+            @Override
+            Object invoke( Object target, long value ) throws Throwable
+            {
+                return descriptor.invoke( target, value );
+            }
+
+            @Override
+            boolean specialized()
+            {
+                return specialized;
+            }
+        };
+    }
+
+    /**
+     * An invoker that stores its argument in a slot of a {@link ParameterBinding}, and keeps the binding updated.
+     */
+    static Invoker slot( final int slot, final Class<?> type )
+    {
+        final boolean specialized = isSpecialized( type );
+        return new Invoker()
+        {
+            @Override
+            Object invoke( Object target, Object[] args )
+            {
+                ( (ParameterBinding) target ).set( slot, args[0] );
+                return MutationPolicy.MUTABLE;
+            }
+
+            @Override
+            Object invoke( Object target, long value )
+            {
+                ( (ParameterBinding) target ).set( slot, value );
+                return MutationPolicy.MUTABLE;
+            }
+
+            @Override
+            boolean specialized()
+            {
+                return specialized;
+            }
+        };
+    }
+
+    private static class Unary extends Invoker
+    {
+        private final MethodHandle handle;
+
+        Unary( MethodHandle handle )
+        {
+            this.handle = handle;
+        }
+
+        @Override
+        Object invoke( Object target, Object[] args ) throws Throwable
+        {
+            return (Object) handle.invokeExact( target, args[0] );
+        }
+    }
+
+    private static class Binary extends Invoker
+    {
+        private final MethodHandle handle;
+
+        Binary( MethodHandle handle )
+        {
+            this.handle = handle;
+        }
+
+        @Override
+        Object invoke( Object target, Object[] args ) throws Throwable
+        {
+            return (Object) handle.invokeExact( target, args[0], args[1] );
+        }
+    }
+
+    private static class Spreading extends Invoker
+    {
+        private final MethodHandle handle;
+
+        Spreading( MethodHandle handle )
+        {
+            this.handle = handle;
+        }
+
+        @Override
+        Object invoke( Object target, Object[] args ) throws Throwable
+        {
+            return (Object) handle.invokeExact( target, args );
+        }
+    }
+
+    private static abstract class PrimitiveUnary extends Invoker
+    {
+        final MethodHandle handle;
+        private final Class<?> type;
+
+        PrimitiveUnary( MethodHandle handle )
+        {
+            this.handle = handle;
+            this.type = handle.type().parameterType( 1 );
+        }
+
+        @Override
+        final Object invoke( Object target, Object[] args ) throws Throwable
+        {
+            return invoke( target, encode( type, args[0] ) );
+        }
+
+        @Override
+        final boolean specialized()
+        {
+            return true;
+        }
+    }
+
+    private static class IntUnary extends PrimitiveUnary
+    {
+        IntUnary( MethodHandle handle )
+        {
+            super( handle );
+        }
+
+        @Override
+        Object invoke( Object target, long value ) throws Throwable
+        {
+            return (Object) handle.invokeExact( target, (int) value );
+        }
+    }
+
+    private static class LongUnary extends PrimitiveUnary
+    {
+        LongUnary( MethodHandle handle )
+        {
+            super( handle );
+        }
+
+        @Override
+        Object invoke( Object target, long value ) throws Throwable
+        {
+            return (Object) handle.invokeExact( target, value );
+        }
+    }
+
+    private static class DoubleUnary extends PrimitiveUnary
+    {
+        DoubleUnary( MethodHandle handle )
+        {
+            super( handle );
+        }
+
+        @Override
+        Object invoke( Object target, long value ) throws Throwable
+        {
+            return (Object) handle.invokeExact( target, Double.longBitsToDouble( value ) );
+        }
+    }
+
+    private static class BooleanUnary extends PrimitiveUnary
+    {
+        BooleanUnary( MethodHandle handle )
+        {
+            super( handle );
+        }
+
+        @Override
+        Object invoke( Object target, long value ) throws Throwable
+        {
+            return (Object) handle.invokeExact( target, value != 0 );
+        }
+    }
+}
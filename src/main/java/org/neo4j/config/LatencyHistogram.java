@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A concurrent histogram of durations in nanoseconds, with one bucket per power of two. Recording is a few
+ * uncontended additions, percentiles are approximate, reported as the upper bound of the bucket they fall in.
+ */
+final class LatencyHistogram
+{
+    private static final LongBinaryOperator MAX = new LongBinaryOperator()
+    {
+        @Override
+        public long applyAsLong( long left, long right )
+        {
+            return Math.max( left, right );
+        }
+    };
+    private final LongAdder count = new LongAdder(), total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator( MAX, 0 );
+    private final LongAdder[] buckets = new LongAdder[65];
+
+    LatencyHistogram()
+    {
+        for ( int i = 0; i < buckets.length; i++ )
+        {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record( long nanos )
+    {
+        if ( nanos < 0 ) nanos = 0;
+        count.increment();
+        total.add( nanos );
+        max.accumulate( nanos );
+        buckets[64 - Long.numberOfLeadingZeros( nanos )].increment();
+    }
+
+    ConfigurationMetricsMXBean.Latency snapshot()
+    {
+        long[] counts = new long[buckets.length];
+        long count = 0;
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            count += counts[i] = buckets[i].sum();
+        }
+        long max = this.max.get();
+        return new ConfigurationMetricsMXBean.Latency( count, total.sum(), max,
+                                                       Math.min( max, percentile( counts, count, 0.5 ) ),
+                                                       Math.min( max, percentile( counts, count, 0.99 ) ) );
+    }
+
+    private static long percentile( long[] counts, long count, double quantile )
+    {
+        long rank = (long) Math.ceil( count * quantile );
+        long seen = 0;
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            seen += counts[i];
+            if ( seen >= rank && seen > 0 ) return i == 64 ? Long.MAX_VALUE : ( 1L << i ) - 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Decides how a configuration change is applied to the {@link MutationPolicy#MUTABLE mutable} objects it affects.
+ *
+ * @see Configuration#listenerDispatch()
+ */
+public abstract class ListenerDispatch
+{
+    /**
+     * Apply changes on the thread that updates the configuration, one listener after the other. This is the default.
+     */
+    public static final ListenerDispatch SYNCHRONOUS = new ListenerDispatch()
+    {
+        @Override
+        CompletableFuture<Void> dispatch( Configuration config, List<MutationPolicy.MutationListener> listeners )
+        {
+            for ( MutationPolicy.MutationListener listener : listeners )
+            {
+                listener.update( config );
+            }
+            return CompletableFuture.completedFuture( null );
+        }
+    };
+
+    /**
+     * Apply changes concurrently, on virtual threads if the runtime supports them, or else on a shared pool of daemon
+     * threads.
+     *
+     * @see #asynchronous(Executor, long, TimeUnit)
+     */
+    public static ListenerDispatch asynchronous( long timeout, TimeUnit unit )
+    {
+        return asynchronous( DefaultExecutor.EXECUTOR, timeout, unit );
+    }
+
+    /**
+     * Apply changes concurrently, in the given executor. The changes to each object are applied in order, one
+     * after the other, but changes to different objects are applied in parallel.
+     *
+     * An object that takes longer than the timeout to apply a change is reported as
+     * {@link Configuration#listenerSlow(Object, long, TimeUnit) slow}, an object that fails to apply a change is
+     * reported as {@link Configuration#listenerFailed(Object, Throwable) failed}. In both cases the future of the
+     * update completes exceptionally.
+     *
+     * @param executor the executor to apply changes in.
+     * @param timeout the time each object is given to apply a change.
+     * @param unit the unit of the timeout.
+     */
+    public static ListenerDispatch asynchronous( Executor executor, long timeout, TimeUnit unit )
+    {
+        return new Asynchronous( executor, unit.toNanos( timeout ) );
+    }
+
+    private ListenerDispatch()
+    {
+        // limit the subclasses
+    }
+
+    /**
+     * Apply a change to the given listeners.
+     *
+     * @return a future that completes when every listener has applied the change.
+     */
+    abstract CompletableFuture<Void> dispatch( Configuration config, List<MutationPolicy.MutationListener> listeners );
+
+    private static class Asynchronous extends ListenerDispatch
+    {
+        private final Executor executor;
+        private final long timeout;
+        private final Map<Object, CompletableFuture<Void>> pending =
+                new IdentityHashMap<Object, CompletableFuture<Void>>();
+
+        Asynchronous( Executor executor, long timeout )
+        {
+            this.executor = executor;
+            this.timeout = timeout;
+        }
+
+        @Override
+        CompletableFuture<Void> dispatch( Configuration config, List<MutationPolicy.MutationListener> listeners )
+        {
+            Map<Object, List<MutationPolicy.MutationListener>> targets =
+                    new IdentityHashMap<Object, List<MutationPolicy.MutationListener>>();
+            for ( MutationPolicy.MutationListener listener : listeners )
+            {
+                Object target = listener.get();
+                if ( target == null ) continue;
+                List<MutationPolicy.MutationListener> updates = targets.get( target );
+                if ( updates == null )
+                {
+                    targets.put( target, updates = new ArrayList<MutationPolicy.MutationListener>() );
+                }
+                updates.add( listener );
+            }
+            CompletableFuture<?>[] applied = new CompletableFuture<?>[targets.size()];
+            int i = 0;
+            for ( Map.Entry<Object, List<MutationPolicy.MutationListener>> target : targets.entrySet() )
+            {
+                applied[i++] = schedule( config, target.getKey(), target.getValue() );
+            }
+            return CompletableFuture.allOf( applied );
+        }
+
+        /**
+         * Schedule the update of a target after all previously scheduled updates of the same target.
+         */
+        private CompletableFuture<Void> schedule( final Configuration config, final Object target,
+                                                  final List<MutationPolicy.MutationListener> listeners )
+        {
+            final CompletableFuture<Void> applied = new CompletableFuture<Void>();
+            Runnable update = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    ScheduledFuture<?> timer = Timer.TIMER.schedule( new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            if ( applied.completeExceptionally( new TimeoutException( "Applying configuration to "
+                                                                                      + target + " timed out." ) ) )
+                            {
+                                config.listenerSlow( target, TimeUnit.NANOSECONDS.toMillis( timeout ),
+                                                     TimeUnit.MILLISECONDS );
+                            }
+                        }
+                    }, timeout, TimeUnit.NANOSECONDS );
+                    try
+                    {
+                        for ( MutationPolicy.MutationListener listener : listeners )
+                        {
+                            listener.update( config );
+                        }
+                        applied.complete( null );
+                    }
+                    catch ( Throwable failure )
+                    {
+                        config.listenerFailed( target, failure );
+                        applied.completeExceptionally( failure );
+                    }
+                    finally
+                    {
+                        timer.cancel( false );
+                    }
+                }
+            };
+            final CompletableFuture<Void> done;
+            synchronized ( pending )
+            {
+                CompletableFuture<Void> previous = pending.get( target );
+                done = previous == null ? CompletableFuture.runAsync( update, executor )
+                        : previous.thenRunAsync( update, executor );
+                pending.put( target, done );
+            }
+            done.whenComplete( new BiConsumer<Void, Throwable>()
+            {
+                @Override
+                public void accept( Void result, Throwable failure )
+                {
+                    if ( failure != null ) applied.completeExceptionally( failure );
+                    synchronized ( pending )
+                    {
+                        if ( pending.get( target ) == done ) pending.remove( target );
+                    }
+                }
+            } );
+            return applied;
+        }
+    }
+
+    private static class DefaultExecutor
+    {
+        static final Executor EXECUTOR;
+        static
+        {
+            Executor executor;
+            try
+            {
+                executor = (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" )
+                        .invoke( null );
+            }
+            catch ( Exception noVirtualThreads )
+            {
+                executor = Executors.newCachedThreadPool( new DaemonThreads( "Configuration listener" ) );
+            }
+            EXECUTOR = executor;
+        }
+    }
+
+    private static class Timer
+    {
+        static final ScheduledExecutorService TIMER =
+                Executors.newSingleThreadScheduledExecutor( new DaemonThreads( "Configuration listener timer" ) );
+    }
+
+    static class DaemonThreads implements ThreadFactory
+    {
+        private final String name;
+
+        DaemonThreads( String name )
+        {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread( Runnable task )
+        {
+            Thread thread = new Thread( task, name );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -19,6 +19,9 @@
  */
 package org.neo4j.config;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
 import org.neo4j.config.Configuration.Configurator;
 
 public enum MutationPolicy
@@ -26,7 +29,8 @@ public enum MutationPolicy
     IMMUTABLE( /*don't care*/true )
     {
         @Override
-        void apply( Configuration config, Object target, Configuration.Configurator configurator )
+        void apply( Configuration config, Configuration.Registrations registrations, Object target,
+                    Configuration.Configurator configurator )
         {
             // do nothing
         }
@@ -36,7 +40,8 @@ public enum MutationPolicy
     CREATION_ONLY( /*not even a restart will change this*/false )
     {
         @Override
-        void apply( Configuration config, Object target, Configuration.Configurator configurator )
+        void apply( Configuration config, Configuration.Registrations registrations, Object target,
+                    Configuration.Configurator configurator )
         {
             // do nothing
         }
@@ -49,19 +54,24 @@ public enum MutationPolicy
         this.requireRestart = requireRestart;
     }
 
-    void apply( Configuration config, Object target, Configuration.Configurator configurator )
+    void apply( Configuration config, Configuration.Registrations registrations, Object target,
+                Configuration.Configurator configurator )
     {
-        config.addMutationListener( new MutationListener( target, configurator ) );
+        registrations.add( new MutationListener( target, configurator, config.collectedTargets() ) );
     }
 
-    class MutationListener
+    /**
+     * Applies configuration changes to a target. The target is only weakly referenced, so that configuring an
+     * object does not keep it alive. When the target is collected the listener is enqueued, and removed by the
+     * {@link Configuration}.
+     */
+    class MutationListener extends WeakReference<Object>
     {
-        private final Object target;
         final Configurator configurator;
 
-        private MutationListener( Object target, Configurator configurator )
+        private MutationListener( Object target, Configurator configurator, ReferenceQueue<Object> queue )
         {
-            this.target = target;
+            super( target, queue );
             this.configurator = configurator;
         }
 
@@ -71,8 +81,9 @@ public enum MutationPolicy
         }
 
         void update( Configuration config )
-        { // TODO: this isn't invoked anywhere
-            configurator.update( config, target );
+        {
+            Object target = get();
+            if ( target != null ) configurator.update( config, target );
         }
     }
 }
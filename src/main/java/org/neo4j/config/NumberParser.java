@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+/**
+ * Parses numbers and comma separated lists in ranges of a {@link CharSequence}, without creating substrings.
+ *
+ * Every range is trimmed of surrounding white space, the same way {@link String#trim()} does. Hexadecimal numbers may
+ * have a <code>0x</code> prefix, after the sign if there is one.
+ */
+final class NumberParser
+{
+    private NumberParser()
+    {
+        // no instances
+    }
+
+    /**
+     * Count the comma separated elements in the input. Trailing blank elements are not counted, the same way
+     * {@link String#split(String)} drops trailing empty strings, so that <code>"1,2,"</code> has two elements.
+     *
+     * @return the number of elements, zero if the input is <code>null</code> or blank.
+     */
+    static int elements( CharSequence input )
+    {
+        if ( input == null ) return 0;
+        int count = 0, elements = 0;
+        boolean blank = true;
+        for ( int i = 0, end = input.length(); i < end; i++ )
+        {
+            char c = input.charAt( i );
+            if ( c == ',' )
+            {
+                count++;
+                if ( !blank ) elements = count;
+                blank = true;
+            }
+            else if ( c > ' ' )
+            {
+                blank = false;
+            }
+        }
+        return blank ? elements : count + 1;
+    }
+
+    /**
+     * @return the end of the element that starts at the given position, the position of the next comma or the end of
+     *         the input.
+     */
+    static int next( CharSequence input, int start )
+    {
+        int end = input.length();
+        for ( int i = start; i < end; i++ )
+        {
+            if ( input.charAt( i ) == ',' ) return i;
+        }
+        return end;
+    }
+
+    static long parseLong( CharSequence input, int start, int end, int radix )
+    {
+        return parse( input, start, end, radix, Long.MIN_VALUE, Long.MAX_VALUE );
+    }
+
+    static int parseInt( CharSequence input, int start, int end, int radix )
+    {
+        return (int) parse( input, start, end, radix, Integer.MIN_VALUE, Integer.MAX_VALUE );
+    }
+
+    static short parseShort( CharSequence input, int start, int end, int radix )
+    {
+        return (short) parse( input, start, end, radix, Short.MIN_VALUE, Short.MAX_VALUE );
+    }
+
+    static byte parseByte( CharSequence input, int start, int end, int radix )
+    {
+        return (byte) parse( input, start, end, radix, Byte.MIN_VALUE, Byte.MAX_VALUE );
+    }
+
+    static boolean parseBoolean( CharSequence input, int start, int end )
+    {
+        start = trimStart( input, start, end );
+        end = trimEnd( input, start, end );
+        if ( end - start != 4 ) return false;
+        return ( input.charAt( start ) | 0x20 ) == 't' && ( input.charAt( start + 1 ) | 0x20 ) == 'r'
+               && ( input.charAt( start + 2 ) | 0x20 ) == 'u' && ( input.charAt( start + 3 ) | 0x20 ) == 'e';
+    }
+
+    /**
+     * Floating point numbers are delegated to {@link Double#parseDouble(String)}, since correct rounding is not
+     * trivial, the substring is only created when the range is not the whole input.
+     */
+    static double parseDouble( CharSequence input, int start, int end )
+    {
+        return Double.parseDouble( range( input, start, end ) );
+    }
+
+    static float parseFloat( CharSequence input, int start, int end )
+    {
+        return Float.parseFloat( range( input, start, end ) );
+    }
+
+    private static String range( CharSequence input, int start, int end )
+    {
+        if ( start == 0 && end == input.length() ) return input.toString();
+        return input.subSequence( start, end ).toString();
+    }
+
+    /**
+     * Parse an integer the way {@link Long#parseLong(String, int)} does, accumulating negatively to handle the
+     * minimum value, and check that it is within the given bounds.
+     */
+    private static long parse( CharSequence input, int start, int end, int radix, long min, long max )
+    {
+        start = trimStart( input, start, end );
+        end = trimEnd( input, start, end );
+        int i = start;
+        boolean negative = false;
+        if ( i < end && ( input.charAt( i ) == '-' || input.charAt( i ) == '+' ) )
+        {
+            negative = input.charAt( i++ ) == '-';
+        }
+        if ( radix == 16 && i + 1 < end && input.charAt( i ) == '0' && ( input.charAt( i + 1 ) | 0x20 ) == 'x' )
+        {
+            i += 2;
+        }
+        if ( i == end ) throw invalid( input, start, end );
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplicationLimit = limit / radix;
+        long result = 0;
+        for ( ; i < end; i++ )
+        {
+            int digit = Character.digit( input.charAt( i ), radix );
+            if ( digit < 0 || result < multiplicationLimit ) throw invalid( input, start, end );
+            result *= radix;
+            if ( result < limit + digit ) throw invalid( input, start, end );
+            result -= digit;
+        }
+        if ( !negative ) result = -result;
+        if ( result < min || result > max ) throw invalid( input, start, end );
+        return result;
+    }
+
+    private static int trimStart( CharSequence input, int start, int end )
+    {
+        while ( start < end && input.charAt( start ) <= ' ' )
+            start++;
+        return start;
+    }
+
+    private static int trimEnd( CharSequence input, int start, int end )
+    {
+        while ( end > start && input.charAt( end - 1 ) <= ' ' )
+            end--;
+        return end;
+    }
+
+    private static NumberFormatException invalid( CharSequence input, int start, int end )
+    {
+        return new NumberFormatException( "For input string: \"" + input.subSequence( start, end ) + "\"" );
+    }
+}
@@ -38,6 +38,33 @@ public @interface Parameter
     {
         SimpleParameterType value();
         String defaultValue() default "";
+
+        /**
+         * Pass a {@link java.util.List} parameter as a view that parses each element when it is accessed. Malformed
+         * elements are reported when they are accessed, not when the object is configured.
+         */
+        boolean lazy() default false;
+    }
+
+    /**
+     * The scope of the restart required when a {@link MutationPolicy#MUTABLE_ON_RESTART} parameter of this
+     * configuration interface changes, such as the component that uses the parameter. Only the affected scopes, and
+     * the scopes that depend on them, are {@link Configuration#restart(java.util.List) restarted}.
+     */
+    @Target( ElementType.TYPE )
+    @Retention( RetentionPolicy.RUNTIME )
+    public @interface RestartScope
+    {
+        /**
+         * The name of the scope, the group of the parameter by default.
+         */
+        String value() default "";
+
+        /**
+         * The scopes this scope depends on. They are restarted before this scope, and restarting any of them also
+         * restarts this scope.
+         */
+        String[] dependsOn() default {};
     }
 
     @Target( ElementType.METHOD )
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds the current values of a getter style {@link Parameter configuration interface}, as returned by
+ * {@link Configuration#bind(Class)}.
+ *
+ * Each getter of the interface is a slot, numbered in the order of the names of the getters. Subclasses are
+ * generated at compile time by the {@link ParameterProcessor}, named <code>&lt;Interface&gt;$$Binding</code>, with a
+ * volatile field for each slot, so that each getter is a single field load. Interfaces without a generated binding
+ * are bound through a {@link Proxy}.
+ */
+public abstract class ParameterBinding
+{
+    final Class<?> iface;
+
+    /**
+     * @param iface the getter style configuration interface this binding implements.
+     */
+    protected ParameterBinding( Class<?> iface )
+    {
+        this.iface = iface;
+    }
+
+    /**
+     * Store the converted value of a slot.
+     */
+    protected abstract void set( int slot, Object value );
+
+    /**
+     * Store the value of a slot of type <code>int</code>, <code>long</code>, <code>double</code> or
+     * <code>boolean</code>, without boxing. The value is encoded as by
+     * {@link ParameterDescriptor#invoke(Object, long)}.
+     */
+    protected abstract void set( int slot, long value );
+
+    /**
+     * @return the object that implements the configuration interface.
+     */
+    Object instance()
+    {
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Binding[" + iface.getName() + "]";
+    }
+
+    /**
+     * Create a binding for a getter style configuration interface, generated if possible, or else a proxy.
+     *
+     * @param config the configuration to report a generated binding that could not be used to.
+     * @param getters the getters of the interface, in slot order.
+     */
+    static ParameterBinding create( Configuration config, Class<?> iface, Method[] getters )
+    {
+        Class<?> generated;
+        try
+        {
+            generated = Class.forName( iface.getName() + "$$Binding", true, iface.getClassLoader() );
+        }
+        catch ( ClassNotFoundException notGenerated )
+        {
+            return new ProxyBinding( iface, getters );
+        }
+        try
+        {
+            return (ParameterBinding) generated.getConstructor().newInstance();
+        }
+        catch ( Exception cause )
+        {
+            config.warning( "ignoring generated binding " + generated.getName(), cause );
+            return new ProxyBinding( iface, getters );
+        }
+    }
+
+    /**
+     * @return the binding of a bound object, or <code>null</code> if the object is not bound.
+     */
+    static ParameterBinding of( Object object )
+    {
+        if ( object instanceof ParameterBinding ) return (ParameterBinding) object;
+        if ( object != null && Proxy.isProxyClass( object.getClass() ) )
+        {
+            InvocationHandler handler = Proxy.getInvocationHandler( object );
+            if ( handler instanceof ProxyBinding ) return (ProxyBinding) handler;
+        }
+        return null;
+    }
+
+    private static class ProxyBinding extends ParameterBinding implements InvocationHandler
+    {
+        private final Method[] getters;
+        private final AtomicReferenceArray<Object> values;
+        private final Object proxy;
+
+        ProxyBinding( Class<?> iface, Method[] getters )
+        {
+            super( iface );
+            this.getters = getters;
+            this.values = new AtomicReferenceArray<Object>( getters.length );
+            this.proxy = Proxy.newProxyInstance( iface.getClassLoader(), new Class<?>[] { iface }, this );
+        }
+
+        @Override
+        protected void set( int slot, Object value )
+        {
+            values.set( slot, value );
+        }
+
+        @Override
+        protected void set( int slot, long value )
+        {
+            values.set( slot, Invoker.decode( getters[slot].getReturnType(), value ) );
+        }
+
+        @Override
+        Object instance()
+        {
+            return proxy;
+        }
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args )
+        {
+            for ( int slot = 0; slot < getters.length; slot++ )
+            {
+                if ( getters[slot].equals( method ) ) return values.get( slot );
+            }
+            if ( "equals".equals( method.getName() ) && args != null && args.length == 1 ) return proxy == args[0];
+            if ( "hashCode".equals( method.getName() ) && args == null ) return System.identityHashCode( proxy );
+            if ( "toString".equals( method.getName() ) && args == null ) return toString();
+            throw new UnsupportedOperationException( method.toString() );
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Describes a {@link Parameter configuration interface} without reflection.
+ *
+ * Subclasses are generated at compile time by the {@link ParameterProcessor}, and registered as services, one for
+ * each configuration interface. When a descriptor is registered for an interface, the {@link Configuration} uses it
+ * instead of inspecting the interface reflectively.
+ */
+public abstract class ParameterDescriptor
+{
+    final Class<?> iface;
+    final String group, name;
+    final Class<?> result;
+    final Class<?>[] parameterTypes;
+    final Class<?> provided;
+    final Class<?> element;
+
+    /**
+     * @param iface the configuration interface this descriptor describes.
+     * @param group the configuration group of the parameter.
+     * @param name the name of the parameter.
+     * @param result the return type of the configuration method.
+     * @param parameterTypes the erased parameter types of the configuration method.
+     * @param element the element type if the single parameter is a {@link java.util.List}, <code>null</code>
+     *            otherwise.
+     */
+    protected ParameterDescriptor( Class<?> iface, String group, String name, Class<?> result,
+                                   Class<?>[] parameterTypes, Class<?> element )
+    {
+        this( iface, group, name, result, parameterTypes, null, element );
+    }
+
+    /**
+     * @param iface the configuration interface this descriptor describes.
+     * @param group the configuration group of the parameter.
+     * @param name the name of the parameter.
+     * @param result the return type of the configuration method.
+     * @param parameterTypes the erased parameter types of the configuration method.
+     * @param provided the erased type provided if the single parameter is a {@link java.util.function.Supplier},
+     *            <code>null</code> otherwise.
+     * @param element the element type if the single parameter, or the provided type, is a {@link java.util.List},
+     *            <code>null</code> otherwise.
+     */
+    protected ParameterDescriptor( Class<?> iface, String group, String name, Class<?> result,
+                                   Class<?>[] parameterTypes, Class<?> provided, Class<?> element )
+    {
+        this.iface = iface;
+        this.group = group;
+        this.name = name;
+        this.result = result;
+        this.parameterTypes = parameterTypes;
+        this.provided = provided;
+        this.element = element;
+    }
+
+    /**
+     * Invoke the configuration method on the target with the converted arguments.
+     *
+     * @return the result of the configuration method, <code>null</code> for void methods.
+     */
+    protected abstract Object invoke( Object target, Object[] arguments ) throws Throwable;
+
+    /**
+     * Invoke a configuration method that has a single <code>int</code>, <code>long</code>, <code>double</code> or
+     * <code>boolean</code> parameter, without boxing the argument. Integers are passed as their value, doubles as
+     * their {@link Double#doubleToRawLongBits(double) raw bits}, and booleans as one or zero.
+     *
+     * The default implementation boxes the argument and delegates to {@link #invoke(Object, Object[])}.
+     *
+     * @return the result of the configuration method, <code>null</code> for void methods.
+     */
+    protected Object invoke( Object target, long value ) throws Throwable
+    {
+        return invoke( target, new Object[] { Invoker.decode( parameterTypes[0], value ) } );
+    }
+
+    /**
+     * @return the {@link Parameter.Type#value() declared type} of the parameter, <code>null</code> if not declared.
+     */
+    protected SimpleParameterType type()
+    {
+        return null;
+    }
+
+    /**
+     * @return the {@link Parameter.Type#defaultValue() declared default value} of the parameter, <code>null</code>
+     *         if not declared.
+     */
+    protected String defaultValue()
+    {
+        return null;
+    }
+
+    /**
+     * @return <code>true</code> if the parameter is declared {@link Parameter.Type#lazy() lazy}.
+     */
+    protected boolean lazy()
+    {
+        return false;
+    }
+
+    /**
+     * @return a new instance of the {@link Parameter.TypeConversion declared converter} of the parameter,
+     *         <code>null</code> if not declared.
+     */
+    protected ParameterConverter<?> converter()
+    {
+        return null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + iface.getName() + "]";
+    }
+
+    static ParameterDescriptor generatedFor( Class<?> iface )
+    {
+        return Generated.DESCRIPTORS.get( iface );
+    }
+
+    /**
+     * Report the generated descriptors that could not be loaded, once, to the first configuration that looks up a
+     * descriptor.
+     */
+    static void reportLoadErrors( Configuration config )
+    {
+        if ( Generated.ERRORS.isEmpty() || !Generated.REPORTED.compareAndSet( false, true ) ) return;
+        for ( ServiceConfigurationError error : Generated.ERRORS )
+        {
+            config.warning( "ignoring generated configuration descriptor", error );
+        }
+    }
+
+    /**
+     * @return the configuration interfaces that have generated descriptors.
+     */
+    static Collection<Class<?>> generatedInterfaces()
+    {
+        return Generated.DESCRIPTORS.keySet();
+    }
+
+    private static class Generated
+    {
+        static final Map<Class<?>, ParameterDescriptor> DESCRIPTORS;
+        /**
+         * The descriptors that could not be loaded, there is no configuration to report them to yet.
+         */
+        static final List<ServiceConfigurationError> ERRORS;
+        static final AtomicBoolean REPORTED = new AtomicBoolean();
+        static
+        {
+            Map<Class<?>, ParameterDescriptor> descriptors = new HashMap<Class<?>, ParameterDescriptor>();
+            List<ServiceConfigurationError> errors = new ArrayList<ServiceConfigurationError>();
+            Iterator<ParameterDescriptor> generated = ServiceLoader.load( ParameterDescriptor.class ).iterator();
+            while ( hasNext( generated, errors ) )
+            {
+                try
+                {
+                    ParameterDescriptor descriptor = generated.next();
+                    descriptors.put( descriptor.iface, descriptor );
+                }
+                catch ( ServiceConfigurationError stale )
+                {
+                    errors.add( stale );
+                }
+            }
+            DESCRIPTORS = Collections.unmodifiableMap( descriptors );
+            ERRORS = Collections.unmodifiableList( errors );
+        }
+
+        private static boolean hasNext( Iterator<ParameterDescriptor> generated,
+                                        List<ServiceConfigurationError> errors )
+        {
+            try
+            {
+                return generated.hasNext();
+            }
+            catch ( ServiceConfigurationError broken )
+            {
+                errors.add( broken );
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,713 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a {@link ParameterDescriptor} for each {@link Parameter configuration interface}, and registers the
+ * generated descriptors as services.
+ *
+ * The processor validates the configuration interfaces the same way the {@link Configuration} would at runtime, so
+ * that an invalid configuration interface is reported when it is compiled rather than when it is first used.
+ */
+public class ParameterProcessor extends AbstractProcessor
+{
+    private static final String SERVICE = "META-INF/services/" + ParameterDescriptor.class.getName();
+    private final List<String> generated = new ArrayList<String>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes()
+    {
+        return Collections.singleton( Parameter.class.getCanonicalName() );
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment round )
+    {
+        for ( Element element : round.getElementsAnnotatedWith( Parameter.class ) )
+        {
+            List<ExecutableElement> getters = getters( element );
+            if ( getters != null )
+            {
+                bind( (TypeElement) element, getters );
+                continue;
+            }
+            Descriptor descriptor = describe( element );
+            if ( descriptor != null ) generate( descriptor );
+        }
+        if ( round.processingOver() && !generated.isEmpty() ) register();
+        return false;
+    }
+
+    /**
+     * @return the getters of a getter style configuration interface, by name, or <code>null</code> if the element is
+     *         not a getter style interface.
+     * @see Configuration#getters(Class)
+     */
+    private static List<ExecutableElement> getters( Element element )
+    {
+        if ( element.getKind() != ElementKind.INTERFACE ) return null;
+        List<ExecutableElement> getters = new ArrayList<ExecutableElement>();
+        for ( ExecutableElement method : ElementFilter.methodsIn( element.getEnclosedElements() ) )
+        {
+            if ( !method.getModifiers().contains( Modifier.ABSTRACT ) ) continue;
+            if ( !method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID ) return null;
+            getters.add( method );
+        }
+        if ( getters.isEmpty() ) return null;
+        Collections.sort( getters, new Comparator<ExecutableElement>()
+        {
+            @Override
+            public int compare( ExecutableElement first, ExecutableElement second )
+            {
+                return first.getSimpleName().toString().compareTo( second.getSimpleName().toString() );
+            }
+        } );
+        return getters;
+    }
+
+    private void bind( TypeElement iface, List<ExecutableElement> getters )
+    {
+        Messager messager = processingEnv.getMessager();
+        if ( !accessible( iface ) ) return;
+        String group = groupOf( iface );
+        if ( group == null ) return;
+        boolean valid = true;
+        for ( ExecutableElement getter : getters )
+        {
+            Descriptor descriptor = new Descriptor( iface, getter, group,
+                    Configuration.getterNameOf( getter.getSimpleName().toString() ),
+                    Collections.singletonList( getter.getReturnType() ) );
+            valid &= descriptor.validate( messager, getter );
+        }
+        if ( !valid ) return;
+        String pkg = packageOf( iface ).getQualifiedName().toString();
+        String simpleName = generatedName( iface, "$$Binding" );
+        String className = "".equals( pkg ) ? simpleName : pkg + "." + simpleName;
+        try
+        {
+            Writer writer = processingEnv.getFiler().createSourceFile( className, iface ).openWriter();
+            try
+            {
+                writeBinding( new PrintWriter( writer ), iface, getters, pkg, simpleName );
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+        catch ( IOException cause )
+        {
+            messager.printMessage( Kind.ERROR, "Could not generate " + className + ": " + cause, iface );
+        }
+    }
+
+    private void writeBinding( PrintWriter out, TypeElement iface, List<ExecutableElement> getters, String pkg,
+                               String simpleName )
+    {
+        String ifaceName = iface.getQualifiedName().toString();
+        if ( !"".equals( pkg ) )
+        {
+            out.println( "package " + pkg + ";" );
+            out.println();
+        }
+        out.println( "/**" );
+        out.println( " * Generated by " + ParameterProcessor.class.getName() + " from {@link " + ifaceName + "}." );
+        out.println( " */" );
+        out.println( "public final class " + simpleName + " extends " + ParameterBinding.class.getName()
+                     + " implements " + ifaceName );
+        out.println( "{" );
+        for ( ExecutableElement getter : getters )
+        {
+            out.println( "    private volatile " + getter.getReturnType() + " " + getter.getSimpleName() + ";" );
+        }
+        out.println();
+        out.println( "    public " + simpleName + "()" );
+        out.println( "    {" );
+        out.println( "        super( " + ifaceName + ".class );" );
+        out.println( "    }" );
+        for ( ExecutableElement getter : getters )
+        {
+            out.println();
+            out.println( "    @Override" );
+            out.println( "    public " + getter.getReturnType() + " " + getter.getSimpleName() + "()" );
+            out.println( "    {" );
+            out.println( "        return " + getter.getSimpleName() + ";" );
+            out.println( "    }" );
+        }
+        out.println();
+        out.println( "    @Override" );
+        out.println( "    @SuppressWarnings( \"unchecked\" )" );
+        out.println( "    protected void set( int slot, Object value )" );
+        out.println( "    {" );
+        out.println( "        switch ( slot )" );
+        out.println( "        {" );
+        for ( int slot = 0; slot < getters.size(); slot++ )
+        {
+            TypeMirror type = getters.get( slot ).getReturnType();
+            String cast = type.getKind().isPrimitive()
+                    ? processingEnv.getTypeUtils().boxedClass( (PrimitiveType) type ).getQualifiedName().toString()
+                    : type.toString();
+            out.println( "        case " + slot + ":" );
+            out.println( "            " + getters.get( slot ).getSimpleName() + " = (" + cast + ") value;" );
+            out.println( "            break;" );
+        }
+        out.println( "        default:" );
+        out.println( "            throw new IndexOutOfBoundsException( \"No slot \" + slot );" );
+        out.println( "        }" );
+        out.println( "    }" );
+        out.println();
+        out.println( "    @Override" );
+        out.println( "    protected void set( int slot, long value )" );
+        out.println( "    {" );
+        out.println( "        switch ( slot )" );
+        out.println( "        {" );
+        for ( int slot = 0; slot < getters.size(); slot++ )
+        {
+            String primitive = primitiveArgument( getters.get( slot ).getReturnType().getKind() );
+            if ( primitive == null ) continue;
+            out.println( "        case " + slot + ":" );
+            out.println( "            " + getters.get( slot ).getSimpleName() + " = " + primitive + ";" );
+            out.println( "            break;" );
+        }
+        out.println( "        default:" );
+        out.println( "            throw new UnsupportedOperationException( \"No primitive slot \" + slot );" );
+        out.println( "        }" );
+        out.println( "    }" );
+        out.println( "}" );
+        out.flush();
+    }
+
+    private boolean accessible( TypeElement iface )
+    {
+        for ( Element scope = iface; scope.getKind() != ElementKind.PACKAGE; scope = scope.getEnclosingElement() )
+        {
+            if ( scope.getModifiers().contains( Modifier.PRIVATE ) )
+            {
+                processingEnv.getMessager().printMessage( Kind.WARNING,
+                        "Private configuration interfaces are configured reflectively.", iface );
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String groupOf( TypeElement iface )
+    {
+        Parameter param = iface.getAnnotation( Parameter.class );
+        String group = param.group().toLowerCase();
+        if ( "".equals( group ) ) group = Configuration.groupOf( packageOf( iface ).getQualifiedName().toString() );
+        if ( "".equals( group ) )
+        {
+            processingEnv.getMessager().printMessage( Kind.ERROR, "Could not determine configuration group for "
+                                                                  + iface.getQualifiedName(), iface );
+            return null;
+        }
+        return group;
+    }
+
+    private static String generatedName( TypeElement iface, String suffix )
+    {
+        String name = iface.getSimpleName().toString();
+        Element scope = iface.getEnclosingElement();
+        for ( ; scope.getKind() != ElementKind.PACKAGE; scope = scope.getEnclosingElement() )
+        {
+            name = scope.getSimpleName() + "$" + name;
+        }
+        return name + suffix;
+    }
+
+    /**
+     * The expression that decodes the <code>long</code> argument of a specialized primitive invocation.
+     */
+    private static String primitiveArgument( TypeKind kind )
+    {
+        switch ( kind )
+        {
+        case INT:
+            return "(int) value";
+        case LONG:
+            return "value";
+        case DOUBLE:
+            return "Double.longBitsToDouble( value )";
+        case BOOLEAN:
+            return "value != 0";
+        default:
+            return null;
+        }
+    }
+
+    private Descriptor describe( Element element )
+    {
+        Messager messager = processingEnv.getMessager();
+        // the configuration only looks for annotated interfaces, other annotated types are ignored
+        if ( element.getKind() != ElementKind.INTERFACE ) return null;
+        TypeElement iface = (TypeElement) element;
+        List<ExecutableElement> methods = ElementFilter.methodsIn( iface.getEnclosedElements() );
+        if ( methods.size() != 1 )
+        {
+            messager.printMessage( Kind.ERROR, "Configuration interfaces must define exactly one method. "
+                                               + iface.getQualifiedName() + " defines " + methods.size() + ".",
+                    iface );
+            return null;
+        }
+        ExecutableElement method = methods.get( 0 );
+        if ( !accessible( iface ) ) return null;
+        String group = groupOf( iface );
+        if ( group == null ) return null;
+        String name = iface.getAnnotation( Parameter.class ).name();
+        if ( "".equals( name ) )
+        {
+            name = Configuration.nameOf( method.getSimpleName().toString(), iface.getSimpleName().toString() );
+        }
+        Descriptor descriptor = new Descriptor( iface, method, group, name );
+        return descriptor.validate( messager, method ) ? descriptor : null;
+    }
+
+    private void generate( Descriptor descriptor )
+    {
+        String pkg = packageOf( descriptor.iface ).getQualifiedName().toString();
+        String simpleName = descriptor.generatedName();
+        String className = "".equals( pkg ) ? simpleName : pkg + "." + simpleName;
+        try
+        {
+            Writer writer = processingEnv.getFiler().createSourceFile( className, descriptor.iface ).openWriter();
+            try
+            {
+                descriptor.write( new PrintWriter( writer ), pkg, simpleName );
+            }
+            finally
+            {
+                writer.close();
+            }
+            generated.add( className );
+        }
+        catch ( IOException cause )
+        {
+            processingEnv.getMessager().printMessage( Kind.ERROR, "Could not generate " + className + ": " + cause,
+                    descriptor.iface );
+        }
+    }
+
+    /**
+     * Write the service registration of the generated descriptors, keeping the descriptors registered by previous
+     * compilations into the same output, such as incremental compilations.
+     */
+    private void register()
+    {
+        Filer filer = processingEnv.getFiler();
+        Set<String> registered = new TreeSet<String>( generated );
+        try
+        {
+            FileObject existing = filer.getResource( StandardLocation.CLASS_OUTPUT, "", SERVICE );
+            BufferedReader reader = new BufferedReader( existing.openReader( true ) );
+            try
+            {
+                for ( String line; ( line = reader.readLine() ) != null; )
+                {
+                    int comment = line.indexOf( '#' );
+                    if ( comment >= 0 ) line = line.substring( 0, comment );
+                    if ( !"".equals( line = line.trim() ) ) registered.add( line );
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch ( IOException noPreviousRegistration )
+        {
+            // nothing to merge with
+        }
+        try
+        {
+            FileObject resource = filer.createResource( StandardLocation.CLASS_OUTPUT, "", SERVICE );
+            PrintWriter writer = new PrintWriter( resource.openWriter() );
+            try
+            {
+                for ( String className : registered )
+                {
+                    writer.println( className );
+                }
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+        catch ( IOException cause )
+        {
+            processingEnv.getMessager().printMessage( Kind.ERROR, "Could not register generated descriptors: "
+                                                                  + cause );
+        }
+    }
+
+    private static PackageElement packageOf( Element element )
+    {
+        while ( element.getKind() != ElementKind.PACKAGE )
+        {
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement) element;
+    }
+
+    private class Descriptor
+    {
+        final TypeElement iface;
+        final ExecutableElement method;
+        final String group, name;
+        private String type, defaultValue, converter;
+        private boolean lazy;
+        private final List<TypeMirror> params;
+        private TypeMirror provided, element;
+
+        Descriptor( TypeElement iface, ExecutableElement method, String group, String name )
+        {
+            this( iface, method, group, name, new ArrayList<TypeMirror>() );
+            for ( VariableElement param : method.getParameters() )
+            {
+                params.add( param.asType() );
+            }
+        }
+
+        Descriptor( TypeElement iface, ExecutableElement method, String group, String name,
+                    List<TypeMirror> params )
+        {
+            this.iface = iface;
+            this.method = method;
+            this.group = group;
+            this.name = name;
+            this.params = params;
+        }
+
+        boolean validate( Messager messager, ExecutableElement method )
+        {
+            Types types = processingEnv.getTypeUtils();
+            for ( AnnotationMirror annotation : method.getAnnotationMirrors() )
+            {
+                String annotationType = annotation.getAnnotationType().toString();
+                if ( Parameter.Type.class.getCanonicalName().equals( annotationType ) )
+                {
+                    for ( ExecutableElement key : annotation.getElementValues().keySet() )
+                    {
+                        AnnotationValue value = annotation.getElementValues().get( key );
+                        if ( "value".equals( key.getSimpleName().toString() ) )
+                        {
+                            type = value.getValue().toString();
+                        }
+                        else if ( "defaultValue".equals( key.getSimpleName().toString() ) )
+                        {
+                            defaultValue = (String) value.getValue();
+                            if ( "".equals( defaultValue ) ) defaultValue = null;
+                        }
+                        else if ( "lazy".equals( key.getSimpleName().toString() ) )
+                        {
+                            lazy = (Boolean) value.getValue();
+                        }
+                    }
+                }
+                else if ( Parameter.TypeConversion.class.getCanonicalName().equals( annotationType ) )
+                {
+                    for ( AnnotationValue value : annotation.getElementValues().values() )
+                    {
+                        converter = types.erasure( (TypeMirror) value.getValue() ).toString();
+                    }
+                }
+            }
+            if ( type != null && converter != null )
+            {
+                messager.printMessage( Kind.ERROR, "Configuration interface method may not declare both "
+                                                   + "@Parameter.Type and @Parameter.TypeConversion.", method );
+                return false;
+            }
+            List<TypeMirror> converted = params;
+            if ( params.size() == 1 && isDeclared( params.get( 0 ), "java.util.function.Supplier" ) )
+            {
+                provided = typeArgument( params.get( 0 ) );
+                if ( provided == null
+                     || ( provided.getKind() != TypeKind.DECLARED && provided.getKind() != TypeKind.ARRAY ) )
+                {
+                    messager.printMessage( Kind.ERROR, "Cannot determine the type provided by " + params.get( 0 ),
+                                           method );
+                    return false;
+                }
+                converted = Collections.singletonList( provided );
+            }
+            if ( converted.size() == 1 && isDeclared( converted.get( 0 ), "java.util.List" ) )
+            {
+                element = typeArgument( converted.get( 0 ) );
+            }
+            if ( converter != null ) return true;
+            try
+            {
+                Class<?>[] classes = new Class<?>[converted.size()];
+                for ( int i = 0; i < classes.length; i++ )
+                {
+                    classes[i] = load( types.erasure( converted.get( i ) ) );
+                }
+                if ( type != null )
+                {
+                    SimpleParameterType.Conversion conversion =
+                            SimpleParameterType.valueOf( type ).conversionFor( classes );
+                    if ( lazy ) SimpleParameterType.lazy( conversion, classes );
+                }
+                else
+                {
+                    SimpleParameterType.lookupConversion( classes, element == null ? null : load( element ) );
+                }
+            }
+            catch ( ClassNotFoundException cause )
+            {
+                messager.printMessage( Kind.ERROR, "Cannot handle parameter of type " + cause.getMessage()
+                                                   + " without @Parameter.TypeConversion.", method );
+                return false;
+            }
+            catch ( IllegalArgumentException cause )
+            {
+                messager.printMessage( Kind.ERROR, cause.getMessage(), method );
+                return false;
+            }
+            return true;
+        }
+
+        private boolean isDeclared( TypeMirror type, String name )
+        {
+            return type.getKind() == TypeKind.DECLARED
+                   && name.equals( processingEnv.getTypeUtils().erasure( type ).toString() );
+        }
+
+        private TypeMirror typeArgument( TypeMirror type )
+        {
+            List<? extends TypeMirror> arguments = ( (DeclaredType) type ).getTypeArguments();
+            return arguments.size() == 1 ? arguments.get( 0 ) : null;
+        }
+
+        private Class<?> load( TypeMirror type ) throws ClassNotFoundException
+        {
+            switch ( type.getKind() )
+            {
+            case BOOLEAN:
+                return boolean.class;
+            case BYTE:
+                return byte.class;
+            case SHORT:
+                return short.class;
+            case INT:
+                return int.class;
+            case LONG:
+                return long.class;
+            case FLOAT:
+                return float.class;
+            case DOUBLE:
+                return double.class;
+            case CHAR:
+                return char.class;
+            case ARRAY:
+                Class<?> component = load( ( (ArrayType) type ).getComponentType() );
+                return Array.newInstance( component, 0 ).getClass();
+            default:
+                return Class.forName( processingEnv.getElementUtils().getBinaryName(
+                        (TypeElement) processingEnv.getTypeUtils().asElement( type ) ).toString() );
+            }
+        }
+
+        String generatedName()
+        {
+            return ParameterProcessor.generatedName( iface, "$$Configurator" );
+        }
+
+        void write( PrintWriter out, String pkg, String simpleName )
+        {
+            Types types = processingEnv.getTypeUtils();
+            String ifaceName = iface.getQualifiedName().toString();
+            TypeMirror result = method.getReturnType();
+            if ( !"".equals( pkg ) )
+            {
+                out.println( "package " + pkg + ";" );
+                out.println();
+            }
+            out.println( "/**" );
+            out.println( " * Generated by " + ParameterProcessor.class.getName() + " from {@link " + ifaceName + "}." );
+            out.println( " */" );
+            out.println( "public final class " + simpleName + " extends " + ParameterDescriptor.class.getName() );
+            out.println( "{" );
+            out.println( "    public " + simpleName + "()" );
+            out.println( "    {" );
+            out.print( "        super( " + ifaceName + ".class, " + literal( group ) + ", " + literal( name ) + ", "
+                       + types.erasure( result ) + ".class, new Class<?>[] {" );
+            for ( int i = 0; i < params.size(); i++ )
+            {
+                out.print( ( i == 0 ? " " : ", " ) + types.erasure( params.get( i ) ) + ".class" );
+            }
+            out.print( " }, " );
+            if ( provided != null ) out.print( types.erasure( provided ) + ".class, " );
+            out.println( ( element == null ? "null" : types.erasure( element ) + ".class" ) + " );" );
+            out.println( "    }" );
+            out.println();
+            out.println( "    @Override" );
+            out.println( "    @SuppressWarnings( \"unchecked\" )" );
+            out.println( "    protected Object invoke( Object target, Object[] arguments )" );
+            out.println( "    {" );
+            out.print( "        " );
+            if ( result.getKind() != TypeKind.VOID ) out.print( "return " );
+            out.print( "( (" + ifaceName + ") target )." + method.getSimpleName() + "(" );
+            for ( int i = 0; i < params.size(); i++ )
+            {
+                TypeMirror param = params.get( i );
+                String cast = param.getKind().isPrimitive()
+                        ? types.boxedClass( (PrimitiveType) param ).getQualifiedName().toString()
+                        : param.toString();
+                out.print( ( i == 0 ? " " : ", " ) + "(" + cast + ") arguments[" + i + "]" );
+            }
+            out.println( params.isEmpty() ? ");" : " );" );
+            if ( result.getKind() == TypeKind.VOID ) out.println( "        return null;" );
+            out.println( "    }" );
+            String primitive = params.size() == 1 ? primitiveArgument( params.get( 0 ).getKind() ) : null;
+            if ( primitive != null )
+            {
+                out.println();
+                out.println( "    @Override" );
+                out.println( "    protected Object invoke( Object target, long value )" );
+                out.println( "    {" );
+                out.print( "        " );
+                if ( result.getKind() != TypeKind.VOID ) out.print( "return " );
+                out.println( "( (" + ifaceName + ") target )." + method.getSimpleName() + "( " + primitive + " );" );
+                if ( result.getKind() == TypeKind.VOID ) out.println( "        return null;" );
+                out.println( "    }" );
+            }
+            if ( type != null )
+            {
+                out.println();
+                out.println( "    @Override" );
+                out.println( "    protected " + SimpleParameterType.class.getName() + " type()" );
+                out.println( "    {" );
+                out.println( "        return " + SimpleParameterType.class.getName() + "." + type + ";" );
+                out.println( "    }" );
+            }
+            if ( defaultValue != null )
+            {
+                out.println();
+                out.println( "    @Override" );
+                out.println( "    protected String defaultValue()" );
+                out.println( "    {" );
+                out.println( "        return " + literal( defaultValue ) + ";" );
+                out.println( "    }" );
+            }
+            if ( lazy )
+            {
+                out.println();
+                out.println( "    @Override" );
+                out.println( "    protected boolean lazy()" );
+                out.println( "    {" );
+                out.println( "        return true;" );
+                out.println( "    }" );
+            }
+            if ( converter != null )
+            {
+                out.println();
+                out.println( "    @Override" );
+                out.println( "    protected " + ParameterConverter.class.getName() + "<?> converter()" );
+                out.println( "    {" );
+                out.println( "        return new " + converter + "();" );
+                out.println( "    }" );
+            }
+            out.println( "}" );
+            out.flush();
+        }
+    }
+
+    private static String literal( String value )
+    {
+        StringBuilder result = new StringBuilder( "\"" );
+        for ( char c : value.toCharArray() )
+        {
+            switch ( c )
+            {
+            case '"':
+                result.append( "\\\"" );
+                break;
+            case '\\':
+                result.append( "\\\\" );
+                break;
+            case '\n':
+                result.append( "\\n" );
+                break;
+            case '\r':
+                result.append( "\\r" );
+                break;
+            case '\t':
+                result.append( "\\t" );
+                break;
+            default:
+                if ( c < ' ' || c > '~' )
+                {
+                    result.append( String.format( "\\u%04x", (int) c ) );
+                }
+                else
+                {
+                    result.append( c );
+                }
+            }
+        }
+        return result.append( '"' ).toString();
+    }
+}
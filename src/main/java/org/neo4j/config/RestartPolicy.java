@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the changes of parameters that can only change on {@link MutationPolicy#MUTABLE_ON_RESTART restart}
+ * are applied. The changed values are staged as pending, and all pending changes are applied together, by a single
+ * {@link Configuration#restart(java.util.List) restart} of the affected scopes.
+ *
+ * @see Configuration#restartPolicy()
+ * @see Configuration#pendingRestart()
+ * @see Configuration#restartNow()
+ */
+public abstract class RestartPolicy
+{
+    /**
+     * Restart on the thread that updates the configuration, as part of the update. This is the default.
+     */
+    public static final RestartPolicy IMMEDIATE = new RestartPolicy()
+    {
+        @Override
+        void schedule( Configuration config )
+        {
+            config.restartNow();
+        }
+    };
+
+    /**
+     * Restart when no further changes that require a restart have been made for the given period, so that a burst
+     * of changes causes a single restart.
+     *
+     * @param period the time without changes to wait for before restarting.
+     * @param unit the unit of the period.
+     */
+    public static RestartPolicy quietPeriod( long period, TimeUnit unit )
+    {
+        final long nanos = unit.toNanos( period );
+        return new Delayed()
+        {
+            @Override
+            long nanosUntilRestart()
+            {
+                return nanos;
+            }
+        };
+    }
+
+    /**
+     * Restart in a daily maintenance window. Changes made outside of the window are applied together when the next
+     * window starts, changes made during the window are applied right away.
+     *
+     * @param start the time of day the window starts.
+     * @param end the time of day the window ends, before the start if the window spans midnight.
+     * @param zone the time zone of the window.
+     */
+    public static RestartPolicy maintenanceWindow( final LocalTime start, final LocalTime end, final ZoneId zone )
+    {
+        return new Delayed()
+        {
+            @Override
+            long nanosUntilRestart()
+            {
+                ZonedDateTime now = ZonedDateTime.now( zone );
+                LocalTime time = now.toLocalTime();
+                boolean open = start.isBefore( end ) ? !time.isBefore( start ) && time.isBefore( end )
+                        : !time.isBefore( start ) || time.isBefore( end );
+                if ( open ) return 0;
+                ZonedDateTime next = now.with( start );
+                if ( !next.isAfter( now ) ) next = next.plusDays( 1 );
+                return Duration.between( now, next ).toNanos();
+            }
+        };
+    }
+
+    private RestartPolicy()
+    {
+        // limit the subclasses
+    }
+
+    /**
+     * Schedule the restart of the pending changes of a configuration, after a change that requires a restart.
+     */
+    abstract void schedule( Configuration config );
+
+    private static abstract class Delayed extends RestartPolicy
+    {
+        @Override
+        void schedule( final Configuration config )
+        {
+            config.scheduleRestart( Timer.TIMER, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        config.restartNow();
+                    }
+                    catch ( RuntimeException failure )
+                    {
+                        config.warning( "scheduled configuration restart failed", failure );
+                    }
+                }
+            }, nanosUntilRestart() );
+        }
+
+        abstract long nanosUntilRestart();
+    }
+
+    /**
+     * Scheduled restarts run on a single thread, so that restarts never overlap.
+     */
+    private static class Timer
+    {
+        static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+                new ListenerDispatch.DaemonThreads( "Configuration restart" ) );
+    }
+}
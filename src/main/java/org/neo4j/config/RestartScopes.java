@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The {@link Parameter.RestartScope restart scopes} of a configuration, and the dependencies between them.
+ */
+final class RestartScopes
+{
+    /**
+     * The scopes each scope depends on.
+     */
+    private final Map<String, Set<String>> dependencies = new TreeMap<String, Set<String>>();
+
+    /**
+     * Declare the restart scope of a configuration interface.
+     *
+     * @return the name of the scope of the parameters of the interface.
+     */
+    synchronized String declare( Class<?> iface, String group )
+    {
+        Parameter.RestartScope declared = iface.getAnnotation( Parameter.RestartScope.class );
+        String scope = declared == null || "".equals( declared.value() ) ? group : declared.value();
+        Set<String> dependsOn = dependenciesOf( scope );
+        if ( declared != null ) for ( String dependency : declared.dependsOn() )
+        {
+            if ( scope.equals( dependency ) )
+                throw new IllegalArgumentException( "Restart scope " + scope + " of " + iface.getName()
+                                                    + " depends on itself." );
+            dependsOn.add( dependency );
+            dependenciesOf( dependency );
+        }
+        return scope;
+    }
+
+    private Set<String> dependenciesOf( String scope )
+    {
+        Set<String> dependsOn = dependencies.get( scope );
+        if ( dependsOn == null ) dependencies.put( scope, dependsOn = new TreeSet<String>() );
+        return dependsOn;
+    }
+
+    /**
+     * Get the scopes to restart when some scopes are affected by a change: the affected scopes and all scopes that
+     * depend on them, directly or indirectly, ordered so that every scope comes after the scopes it depends on.
+     */
+    synchronized List<String> restartOrder( Collection<String> affected )
+    {
+        Set<String> restart = new TreeSet<String>( affected );
+        for ( boolean added = true; added; )
+        {
+            added = false;
+            for ( Map.Entry<String, Set<String>> scope : dependencies.entrySet() )
+            {
+                if ( !restart.contains( scope.getKey() ) && !Collections.disjoint( scope.getValue(), restart ) )
+                {
+                    added |= restart.add( scope.getKey() );
+                }
+            }
+        }
+        Set<String> ordered = new LinkedHashSet<String>();
+        for ( String scope : restart )
+        {
+            visit( scope, restart, ordered, new LinkedHashSet<String>() );
+        }
+        return new ArrayList<String>( ordered );
+    }
+
+    private void visit( String scope, Set<String> restart, Set<String> ordered, Set<String> visiting )
+    {
+        if ( ordered.contains( scope ) ) return;
+        if ( !visiting.add( scope ) )
+            throw new IllegalStateException( "Cyclic restart scope dependencies: " + visiting + " -> " + scope );
+        Set<String> dependsOn = dependencies.get( scope );
+        if ( dependsOn != null ) for ( String dependency : dependsOn )
+        {
+            if ( restart.contains( dependency ) ) visit( dependency, restart, ordered, visiting );
+        }
+        visiting.remove( scope );
+        ordered.add( scope );
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "RestartScopes" + dependencies;
+    }
+}
@@ -20,17 +20,17 @@
 package org.neo4j.config;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 public enum SimpleParameterType
 {
@@ -50,10 +50,19 @@ public enum SimpleParameterType
 
         String defaultInput();
 
-        Object[] performOn( String input, Method method );
+        Object[] performOn( String input, Class<?>[] params );
     }
 
-    private enum SimpleParam implements Conversion
+    /**
+     * Converts the input of a single <code>int</code>, <code>long</code>, <code>double</code> or <code>boolean</code>
+     * parameter without boxing, to the encoding of {@link Invoker#invoke(Object, long)}.
+     */
+    interface PrimitiveConversion
+    {
+        long performOn( String input );
+    }
+
+    private enum SimpleParam implements Conversion, PrimitiveConversion
     {
         STRING( null, String.class )
         {
@@ -64,97 +73,97 @@ public enum SimpleParameterType
             }
 
             @Override
-            String[] boxedArray( String input )
+            Object element( String input, int start, int end )
             {
-                return input.split( "," );
+                return input.substring( start, end );
             }
         },
         BOOLEAN( "false", boolean.class, Boolean.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Boolean.valueOf( input.trim() );
+                return NumberParser.parseBoolean( input, start, end ) ? 1 : 0;
             }
         },
         BYTE( "0", byte.class, Byte.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Byte.valueOf( input.trim() );
+                return NumberParser.parseByte( input, start, end, 10 );
             }
         },
         HEX_BYTE( "0", byte.class, Byte.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Byte.valueOf( input.trim(), 16 );
+                return NumberParser.parseByte( input, start, end, 16 );
             }
         },
         SHORT( "0", short.class, Short.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Short.valueOf( input.trim() );
+                return NumberParser.parseShort( input, start, end, 10 );
             }
         },
         HEX_SHORT( "0", short.class, Short.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Short.valueOf( input.trim(), 16 );
+                return NumberParser.parseShort( input, start, end, 16 );
             }
         },
         INTEGER( "0", int.class, Integer.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Integer.valueOf( input.trim() );
+                return NumberParser.parseInt( input, start, end, 10 );
             }
         },
         HEX_INT( "0x0", int.class, Integer.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Integer.valueOf( input.trim(), 16 );
+                return NumberParser.parseInt( input, start, end, 16 );
             }
         },
         LONG( "0", long.class, Long.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Long.valueOf( input.trim() );
+                return NumberParser.parseLong( input, start, end, 10 );
             }
         },
         HEX_LONG( "0x0", long.class, Long.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Long.valueOf( input.trim(), 16 );
+                return NumberParser.parseLong( input, start, end, 16 );
             }
         },
         FLOAT( "0", float.class, Float.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Float.valueOf( input.trim() );
+                return Double.doubleToRawLongBits( NumberParser.parseFloat( input, start, end ) );
             }
         },
         DOUBLE( "0", double.class, Double.class )
         {
             @Override
-            Object convert( String input )
+            long parse( CharSequence input, int start, int end )
             {
-                return Double.valueOf( input.trim() );
+                return Double.doubleToRawLongBits( NumberParser.parseDouble( input, start, end ) );
             }
         },
         URI( null, java.net.URI.class )
@@ -236,33 +245,96 @@ public enum SimpleParameterType
         }
 
         @Override
-        public Object[] performOn( String input, Method method )
+        public Object[] performOn( String input, Class<?>[] params )
         {
             return new Object[] { convert( input ) };
         }
 
-        abstract Object convert( String input );
+        /**
+         * Convert the input of a single parameter. Numbers and booleans are {@link #parse(CharSequence, int, int)
+         * parsed} and boxed.
+         */
+        Object convert( String input )
+        {
+            return box( parse( input, 0, input.length() ) );
+        }
 
-        Object primitiveArray( String input )
+        /**
+         * Parse a range of the input to the encoding of {@link Invoker#invoke(Object, long)}, for the numeric and
+         * boolean conversions: integers as their value, floating point numbers as the raw bits of the double value,
+         * and booleans as one or zero.
+         */
+        long parse( CharSequence input, int start, int end )
         {
-            Class<?> component = options[0];
-            if ( !component.isPrimitive() ) throw new Error( this + " does not represent a primitive type" );
-            return array( input, component );
+            throw new UnsupportedOperationException( this + " does not convert to a primitive" );
+        }
+
+        @Override
+        public long performOn( String input )
+        {
+            return parse( input, 0, input.length() );
+        }
+
+        boolean specialized()
+        {
+            return Invoker.isSpecialized( options[0] );
+        }
+
+        /**
+         * Convert one element of a comma separated list.
+         */
+        Object element( String input, int start, int end )
+        {
+            return box( parse( input, start, end ) );
+        }
+
+        private Object box( long value )
+        {
+            Class<?> type = options[0];
+            if ( type == int.class ) return Integer.valueOf( (int) value );
+            if ( type == long.class ) return Long.valueOf( value );
+            if ( type == double.class ) return Double.valueOf( Double.longBitsToDouble( value ) );
+            if ( type == boolean.class ) return Boolean.valueOf( value != 0 );
+            if ( type == short.class ) return Short.valueOf( (short) value );
+            if ( type == byte.class ) return Byte.valueOf( (byte) value );
+            if ( type == float.class ) return Float.valueOf( (float) Double.longBitsToDouble( value ) );
+            throw new UnsupportedOperationException( this + " does not convert to a primitive" );
         }
 
-        Object boxedArray( String input )
+        /**
+         * Parse a comma separated list directly into a primitive array.
+         */
+        Object primitiveArray( String input )
         {
-            return array( input, options[1] );
+            Class<?> component = options[0];
+            if ( !component.isPrimitive() ) throw new Error( this + " does not represent a primitive type" );
+            int size = NumberParser.elements( input );
+            Object array = Array.newInstance( component, size );
+            for ( int i = 0, start = 0; i < size; i++ )
+            {
+                int end = NumberParser.next( input, start );
+                long value = parse( input, start, end );
+                if ( array instanceof int[] ) ( (int[]) array )[i] = (int) value;
+                else if ( array instanceof long[] ) ( (long[]) array )[i] = value;
+                else if ( array instanceof double[] ) ( (double[]) array )[i] = Double.longBitsToDouble( value );
+                else if ( array instanceof boolean[] ) ( (boolean[]) array )[i] = value != 0;
+                else if ( array instanceof short[] ) ( (short[]) array )[i] = (short) value;
+                else if ( array instanceof byte[] ) ( (byte[]) array )[i] = (byte) value;
+                else ( (float[]) array )[i] = (float) Double.longBitsToDouble( value );
+                start = end + 1;
+            }
+            return array;
         }
 
-        private Object array( String input, Class<?> component )
+        Object[] boxedArray( String input )
         {
-            if ( input == null || "".equals( input = input.trim() ) ) return Array.newInstance( component, 0 );
-            String[] parts = input.split( "," );
-            Object array = Array.newInstance( component, parts.length );
-            for ( int i = 0; i < parts.length; i++ )
+            int size = NumberParser.elements( input );
+            Object[] array = (Object[]) Array.newInstance( options[options.length - 1], size );
+            for ( int i = 0, start = 0; i < size; i++ )
             {
-                Array.set( array, i, convert( parts[i] ) );
+                int end = NumberParser.next( input, start );
+                array[i] = element( input, start, end );
+                start = end + 1;
             }
             return array;
         }
@@ -281,7 +353,7 @@ public enum SimpleParameterType
         BYTE( SimpleParam.BYTE, byte[].class, Byte[].class ),
         HEX_BYTE( SimpleParam.HEX_BYTE, byte[].class, Byte[].class ),
         SHORT( SimpleParam.SHORT, short[].class, Short[].class ),
-        HEX_SHORT( SimpleParam.SHORT, short[].class, Short[].class ),
+        HEX_SHORT( SimpleParam.HEX_SHORT, short[].class, Short[].class ),
         INTEGER( SimpleParam.INTEGER, int[].class, Integer[].class ),
         HEX_INT( SimpleParam.HEX_INT, int[].class, Integer[].class ),
         LONG( SimpleParam.LONG, long[].class, Long[].class ),
@@ -319,9 +391,9 @@ public enum SimpleParameterType
         }
 
         @Override
-        public Object[] performOn( String input, Method method )
+        public Object[] performOn( String input, Class<?>[] params )
         {
-            Class<?> param = method.getParameterTypes()[0];
+            Class<?> param = params[0];
             Object result;
             if ( param.isArray() )
             {
@@ -341,17 +413,9 @@ public enum SimpleParameterType
             return new Object[] { result };
         }
 
-        @SuppressWarnings( "unchecked" )
         private List<?> list( String input )
         {
-            if ( input == null || "".equals( input ) ) return Collections.emptyList();
-            String[] parts = input.split( "," );
-            @SuppressWarnings( "rawtypes" ) List result = new ArrayList( parts.length );
-            for ( String part : parts )
-            {
-                result.add( component.convert( part ) );
-            }
-            return Collections.unmodifiableList( result );
+            return Collections.unmodifiableList( Arrays.asList( component.boxedArray( input ) ) );
         }
 
         void addAsSimple( Map<Class<?>, Conversion> simples )
@@ -411,7 +475,7 @@ public enum SimpleParameterType
         }
 
         @Override
-        public Object[] performOn( String input, Method method )
+        public Object[] performOn( String input, Class<?>[] params )
         {
             return convert( input );
         }
@@ -419,6 +483,79 @@ public enum SimpleParameterType
         abstract Object[] convert( String input );
     }
 
+    private static class LazyListConversion implements Conversion
+    {
+        private final ListParam list;
+
+        LazyListConversion( ListParam list )
+        {
+            this.list = list;
+        }
+
+        @Override
+        public boolean handles( Class<?>[] params )
+        {
+            return params.length == 1 && params[0] == List.class;
+        }
+
+        @Override
+        public String defaultInput()
+        {
+            return list.defaultInput();
+        }
+
+        @Override
+        public Object[] performOn( String input, Class<?>[] params )
+        {
+            return new Object[] { new LazyList( input, list.component ) };
+        }
+    }
+
+    /**
+     * An unmodifiable view of a comma separated list, that only locates the elements up front, and parses each
+     * element when it is accessed.
+     */
+    private static class LazyList extends AbstractList<Object> implements RandomAccess
+    {
+        private final String input;
+        private final SimpleParam component;
+        /**
+         * The start of each element, followed by the end of the input plus one, so that element <code>i</code> ends
+         * at <code>offsets[i + 1] - 1</code>.
+         */
+        private final int[] offsets;
+
+        LazyList( String input, SimpleParam component )
+        {
+            int size = NumberParser.elements( input );
+            int[] offsets = new int[size + 1];
+            int start = 0;
+            for ( int i = 0; i < size; i++ )
+            {
+                offsets[i] = start;
+                start = NumberParser.next( input, start ) + 1;
+            }
+            offsets[size] = start;
+            this.input = input;
+            this.component = component;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public Object get( int index )
+        {
+            if ( index < 0 || index >= size() )
+                throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size() );
+            return component.element( input, offsets[index], offsets[index + 1] - 1 );
+        }
+
+        @Override
+        public int size()
+        {
+            return offsets.length - 1;
+        }
+    }
+
     private final Conversion[] options;
 
     private SimpleParameterType( Conversion... options )
@@ -453,46 +590,89 @@ public enum SimpleParameterType
         LIST = Collections.unmodifiableMap( lists );
     }
 
+    /**
+     * Get the unboxed form of a conversion, if the parameters are a single specialized primitive.
+     *
+     * @return the primitive conversion, or <code>null</code> if the conversion must box its result.
+     * @see Invoker#isSpecialized(Class)
+     */
+    static PrimitiveConversion primitiveConversion( Conversion conversion, Class<?>[] params )
+    {
+        if ( params.length != 1 || !params[0].isPrimitive() || !( conversion instanceof SimpleParam ) ) return null;
+        SimpleParam simple = (SimpleParam) conversion;
+        return simple.specialized() && simple.options[0] == params[0] ? simple : null;
+    }
+
+    /**
+     * Get the {@link Parameter.Type#lazy() lazy} form of a list conversion.
+     *
+     * @throws IllegalArgumentException if the parameter is not a {@link List}.
+     */
+    static Conversion lazy( Conversion conversion, Class<?>[] params )
+    {
+        if ( conversion instanceof ListParam && params.length == 1 && params[0] == List.class )
+        {
+            return new LazyListConversion( (ListParam) conversion );
+        }
+        throw new IllegalArgumentException( "Only List parameters can be lazy, not " + Arrays.toString( params ) );
+    }
+
     static Conversion lookupConversion( Type[] params )
     {
-        if ( params.length == 1 )
+        Class<?>[] types = new Class<?>[params.length];
+        Class<?> element = null;
+        for ( int i = 0; i < params.length; i++ )
         {
-            Type param = params[0];
-            Conversion result = null;
+            Type param = params[i];
             if ( param instanceof Class<?> )
             {
-                result = SIMPLE.get( param );
+                types[i] = (Class<?>) param;
             }
-            else if ( param instanceof ParameterizedType && List.class == ( (ParameterizedType) param ).getRawType() )
+            else if ( params.length == 1 && param instanceof ParameterizedType
+                      && List.class == ( (ParameterizedType) param ).getRawType()
+                      && ( (ParameterizedType) param ).getActualTypeArguments()[0] instanceof Class<?> )
             {
-                param = ( (ParameterizedType) param ).getActualTypeArguments()[0];
-                if ( param instanceof Class<?> )
-                {
-                    result = LIST.get( param );
-                }
+                types[i] = List.class;
+                element = (Class<?>) ( (ParameterizedType) param ).getActualTypeArguments()[0];
+            }
+            else
+            {
+                throw new IllegalArgumentException( "Cannot handle parameters of type: " + Arrays.toString( params ) );
             }
-            if ( result != null ) return result;
         }
-        else if ( params.length > 1 )
+        return lookupConversion( types, element );
+    }
+
+    /**
+     * Look up the implicit conversion for parameters of the given (erased) types.
+     *
+     * @param params the erased parameter types.
+     * @param element the element type if the single parameter is a {@link List}, <code>null</code> otherwise.
+     * @return the conversion for the parameters.
+     */
+    static Conversion lookupConversion( Class<?>[] params, Class<?> element )
+    {
+        if ( params.length == 1 )
         {
-            Class<?>[] types = new Class<?>[params.length];
-            for ( int i = 0; i < params.length; i++ )
+            Conversion result;
+            if ( params[0] == List.class )
             {
-                if ( params[i] instanceof Class<?> )
-                {
-                    types[i] = (Class<?>) params[i];
-                }
-                else
-                {
-                    types = null;
-                    break;
-                }
+                result = element == null ? null : LIST.get( element );
             }
-            if ( types != null ) for ( MultiParam multi : MultiParam.values() )
+            else
+            {
+                result = SIMPLE.get( params[0] );
+            }
+            if ( result != null ) return result;
+        }
+        else if ( params.length > 1 )
+        {
+            for ( MultiParam multi : MultiParam.values() )
             {
-                if ( multi.handles( types ) ) return multi;
+                if ( multi.handles( params ) ) return multi;
             }
         }
-        throw new IllegalArgumentException( "Cannot handle parameters of type: " + Arrays.toString( params ) );
+        throw new IllegalArgumentException( "Cannot handle parameters of type: " + Arrays.toString( params )
+                                            + ( element == null ? "" : " of " + element.getName() ) );
     }
 }
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A compact binary file with the merged values of all configuration files in a directory.
+ *
+ * The file starts with a header of a magic number, a format version, and the SHA-256 digest of the configuration
+ * files it was written from. The header is followed by the values, by parameter name, by group, and the file ends
+ * with the CRC32 checksum of the values, so that a truncated file is detected. Strings are stored as their length
+ * followed by their UTF-8 bytes.
+ */
+final class SnapshotFile
+{
+    private static final int MAGIC = 0x4e434647; // "NCFG"
+    private static final int VERSION = 2;
+    private static final int DIGEST = 32;
+    private static final int HEADER = 4 + 4 + DIGEST;
+
+    private SnapshotFile()
+    {
+        // no instances
+    }
+
+    /**
+     * The SHA-256 digest of the names and contents of the given configuration files. Every name and content is
+     * preceded by its length, so that moving bytes from one file to the next changes the digest.
+     */
+    static byte[] checksum( List<Path> files ) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException cause )
+        {
+            throw new IllegalStateException( "SHA-256 is required of every Java platform", cause );
+        }
+        ByteBuffer length = ByteBuffer.allocate( 8 );
+        for ( Path file : files )
+        {
+            byte[] name = file.getFileName().toString().getBytes( StandardCharsets.UTF_8 );
+            digest.update( length.clear().putLong( name.length ).flip() );
+            digest.update( name );
+            try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+            {
+                long size = channel.size();
+                digest.update( length.clear().putLong( size ).flip() );
+                digest.update( channel.map( MapMode.READ_ONLY, 0, size ) );
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Read a snapshot through a memory mapped buffer.
+     *
+     * @return the values of the snapshot, or <code>null</code> if there is no snapshot, or if it is stale, corrupt,
+     *         or of another format version.
+     */
+    static Map<String, Map<String, String>> read( Path file, byte[] checksum ) throws IOException
+    {
+        ByteBuffer buffer;
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            if ( channel.size() < HEADER + 8 ) return null;
+            buffer = channel.map( MapMode.READ_ONLY, 0, channel.size() );
+        }
+        catch ( NoSuchFileException noSnapshot )
+        {
+            return null;
+        }
+        if ( buffer.getInt() != MAGIC || buffer.getInt() != VERSION ) return null;
+        byte[] recorded = new byte[DIGEST];
+        buffer.get( recorded );
+        if ( !MessageDigest.isEqual( recorded, checksum ) ) return null;
+        ByteBuffer values = buffer.duplicate();
+        values.limit( buffer.limit() - 8 );
+        CRC32 crc = new CRC32();
+        crc.update( values );
+        if ( crc.getValue() != buffer.getLong( buffer.limit() - 8 ) ) return null;
+        buffer.limit( buffer.limit() - 8 );
+        try
+        {
+            int groups = buffer.getInt();
+            Map<String, Map<String, String>> result = new HashMap<String, Map<String, String>>( groups * 2 );
+            for ( int g = 0; g < groups; g++ )
+            {
+                String group = readString( buffer );
+                int size = buffer.getInt();
+                Map<String, String> params = new HashMap<String, String>( size * 2 );
+                for ( int p = 0; p < size; p++ )
+                {
+                    params.put( readString( buffer ), readString( buffer ) );
+                }
+                result.put( group, params );
+            }
+            return buffer.hasRemaining() ? null : result;
+        }
+        catch ( BufferUnderflowException corrupt )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Write a snapshot, replacing any previous snapshot atomically.
+     */
+    static void write( Path file, byte[] checksum, Map<String, Map<String, String>> values ) throws IOException
+    {
+        int size = HEADER + 4 + 8;
+        Map<String, byte[]> encoded = new HashMap<String, byte[]>();
+        for ( Map.Entry<String, Map<String, String>> group : values.entrySet() )
+        {
+            size += 4 + encode( encoded, group.getKey() ).length + 4;
+            for ( Map.Entry<String, String> param : group.getValue().entrySet() )
+            {
+                size += 4 + encode( encoded, param.getKey() ).length + 4 + encode( encoded, param.getValue() ).length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate( size );
+        if ( checksum.length != DIGEST ) throw new IllegalArgumentException( "not a SHA-256 digest" );
+        buffer.putInt( MAGIC ).putInt( VERSION ).put( checksum );
+        buffer.putInt( values.size() );
+        for ( Map.Entry<String, Map<String, String>> group : values.entrySet() )
+        {
+            writeString( buffer, encoded.get( group.getKey() ) );
+            buffer.putInt( group.getValue().size() );
+            for ( Map.Entry<String, String> param : group.getValue().entrySet() )
+            {
+                writeString( buffer, encoded.get( param.getKey() ) );
+                writeString( buffer, encoded.get( param.getValue() ) );
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update( buffer.array(), HEADER, buffer.position() - HEADER );
+        buffer.putLong( crc.getValue() );
+        Path temp = file.resolveSibling( file.getFileName() + ".tmp" );
+        Files.write( temp, buffer.array() );
+        Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    private static byte[] encode( Map<String, byte[]> encoded, String value )
+    {
+        byte[] bytes = encoded.get( value );
+        if ( bytes == null ) encoded.put( value, bytes = value.getBytes( StandardCharsets.UTF_8 ) );
+        return bytes;
+    }
+
+    private static void writeString( ByteBuffer buffer, byte[] value )
+    {
+        buffer.putInt( value.length ).put( value );
+    }
+
+    private static String readString( ByteBuffer buffer )
+    {
+        int length = buffer.getInt();
+        if ( length < 0 || length > buffer.remaining() ) throw new BufferUnderflowException();
+        ByteBuffer value = buffer.slice();
+        value.limit( length );
+        buffer.position( buffer.position() + length );
+        return StandardCharsets.UTF_8.decode( value ).toString();
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BindTest
+{
+    @Parameter( group = "bound" )
+    public interface Generated
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "7474" )
+        int port();
+
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "100000000000" )
+        long size();
+
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "0.5" )
+        double ratio();
+
+        @Parameter.Type( value = SimpleParameterType.BOOLEAN, defaultValue = "true" )
+        boolean isEnabled();
+
+        @Parameter.Type( value = SimpleParameterType.STRING, defaultValue = "graph" )
+        String name();
+    }
+
+    @Parameter( group = "bound" )
+    private interface Reflective
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "7474" )
+        int port();
+
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "100000000000" )
+        long size();
+
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "0.5" )
+        double ratio();
+
+        @Parameter.Type( value = SimpleParameterType.BOOLEAN, defaultValue = "true" )
+        boolean isEnabled();
+
+        @Parameter.Type( value = SimpleParameterType.STRING, defaultValue = "graph" )
+        String name();
+    }
+
+    private final TestConfiguration config = new TestConfiguration();
+    private final ConfigurationChangeTest.Manager manager = new ConfigurationChangeTest.Manager( config );
+
+    private void change() throws Exception
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put( "port", "7687" );
+        values.put( "size", "-1" );
+        values.put( "ratio", "0.25" );
+        values.put( "enabled", "false" );
+        values.put( "name", "other" );
+        Map<String, Map<String, String>> update = new HashMap<String, Map<String, String>>();
+        update.put( "bound", values );
+        manager.set( update );
+    }
+
+    @Test
+    public void shouldBindThroughTheGeneratedBinding() throws Exception
+    {
+        Generated bound = config.bind( Generated.class );
+        assertTrue( bound instanceof ParameterBinding );
+        assertEquals( 7474, bound.port() );
+        assertEquals( 100000000000L, bound.size() );
+        assertEquals( 0.5, bound.ratio(), 0 );
+        assertTrue( bound.isEnabled() );
+        assertEquals( "graph", bound.name() );
+    }
+
+    @Test
+    public void shouldBindThroughAProxyWithoutAGeneratedBinding() throws Exception
+    {
+        Reflective bound = config.bind( Reflective.class );
+        assertTrue( Proxy.isProxyClass( bound.getClass() ) );
+        assertEquals( 7474, bound.port() );
+        assertEquals( 100000000000L, bound.size() );
+        assertEquals( 0.5, bound.ratio(), 0 );
+        assertTrue( bound.isEnabled() );
+        assertEquals( "graph", bound.name() );
+    }
+
+    @Test
+    public void shouldUpdateAGeneratedBindingWhileItIsReferenced() throws Exception
+    {
+        Generated bound = config.bind( Generated.class );
+        System.gc();
+        change();
+        assertEquals( 7687, bound.port() );
+        assertEquals( -1L, bound.size() );
+        assertEquals( 0.25, bound.ratio(), 0 );
+        assertEquals( false, bound.isEnabled() );
+        assertEquals( "other", bound.name() );
+    }
+
+    @Test
+    public void shouldUpdateAProxyBindingWhileItIsReferenced() throws Exception
+    {
+        Reflective bound = config.bind( Reflective.class );
+        System.gc();
+        change();
+        assertEquals( 7687, bound.port() );
+        assertEquals( -1L, bound.size() );
+        assertEquals( 0.25, bound.ratio(), 0 );
+        assertEquals( false, bound.isEnabled() );
+        assertEquals( "other", bound.name() );
+    }
+
+    @Test
+    public void shouldStopUpdatingAnUnconfiguredBinding() throws Exception
+    {
+        Generated generated = config.bind( Generated.class );
+        Reflective reflective = config.bind( Reflective.class );
+        Generated updated = config.bind( Generated.class );
+        config.unconfigure( generated );
+        config.unconfigure( reflective );
+        change();
+        assertEquals( 7474, generated.port() );
+        assertEquals( "graph", generated.name() );
+        assertEquals( 7474, reflective.port() );
+        assertEquals( "graph", reflective.name() );
+        assertEquals( 7687, updated.port() );
+        assertEquals( "other", updated.name() );
+    }
+}
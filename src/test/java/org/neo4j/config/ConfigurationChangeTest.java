@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ConfigurationChangeTest
+{
+    @Parameter( group = "test", name = "fixed" )
+    public interface Fixed
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "1" )
+        MutationPolicy fixed( int value );
+    }
+
+    @Parameter( group = "test", name = "dynamic" )
+    public interface Dynamic
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "1" )
+        MutationPolicy dynamic( int value );
+    }
+
+    static class FixedTarget implements Fixed
+    {
+        int value;
+
+        @Override
+        public MutationPolicy fixed( int value )
+        {
+            this.value = value;
+            return MutationPolicy.IMMUTABLE;
+        }
+    }
+
+    static class DynamicTarget implements Dynamic
+    {
+        volatile int value;
+
+        @Override
+        public MutationPolicy dynamic( int value )
+        {
+            this.value = value;
+            return MutationPolicy.MUTABLE;
+        }
+    }
+
+    static class Manager extends ConfigurationManager
+    {
+        Manager( Configuration config )
+        {
+            super( config );
+        }
+
+        void set( String group, String name, String value ) throws Exception
+        {
+            Map<String, String> values = new HashMap<String, String>();
+            values.put( name, value );
+            update( group, values ).get();
+        }
+
+        void set( Map<String, Map<String, String>> values ) throws Exception
+        {
+            update( values ).get();
+        }
+    }
+
+    private final TestConfiguration config = new TestConfiguration();
+    private final Manager manager = new Manager( config );
+
+    @Test
+    public void shouldPublishChangesOfParametersWithoutListeners() throws Exception
+    {
+        assertEquals( 1, config.configure( new FixedTarget() ).value );
+        manager.set( "test", "fixed", "5" );
+        assertEquals( "5", config.snapshot().get( "test", "fixed" ) );
+        assertEquals( 5, config.configure( new FixedTarget() ).value );
+    }
+
+    @Test
+    public void shouldPublishChangesOfParametersNobodyHasUsedYet() throws Exception
+    {
+        manager.set( "test", "dynamic", "3" );
+        assertEquals( 3, config.configure( new DynamicTarget() ).value );
+    }
+
+    @Test
+    public void shouldKeepTheValuesOfOlderSnapshots() throws Exception
+    {
+        Configuration.Snapshot before = config.snapshot();
+        manager.set( "test", "fixed", "5" );
+        Configuration.Snapshot after = config.snapshot();
+        assertTrue( after.version() > before.version() );
+        assertEquals( 1, before.configure( new FixedTarget() ).value );
+        assertEquals( 5, after.configure( new FixedTarget() ).value );
+    }
+
+    @Test
+    public void shouldApplyChangesToEveryMutableTarget() throws Exception
+    {
+        List<DynamicTarget> targets = new ArrayList<DynamicTarget>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            targets.add( config.configure( new DynamicTarget() ) );
+        }
+        manager.set( "TEST", "Dynamic", "7" );
+        for ( DynamicTarget target : targets )
+        {
+            assertEquals( 7, target.value );
+        }
+    }
+
+    @Test
+    public void shouldApplyChangesPublishedWhileABatchIsConfigured() throws Exception
+    {
+        List<DynamicTarget> targets = new ArrayList<DynamicTarget>();
+        targets.add( new DynamicTarget()
+        {
+            @Override
+            public MutationPolicy dynamic( int value )
+            {
+                try
+                {
+                    if ( value == 1 ) manager.set( "test", "dynamic", "4" );
+                }
+                catch ( Exception e )
+                {
+                    throw new IllegalStateException( e );
+                }
+                return super.dynamic( value );
+            }
+        } );
+        for ( int i = 0; i < 10; i++ )
+        {
+            targets.add( new DynamicTarget() );
+        }
+        config.configureAll( targets );
+        for ( DynamicTarget target : targets )
+        {
+            assertEquals( 4, target.value );
+        }
+    }
+
+    @Test
+    public void shouldPublishAllValuesOfAnUpdateAtomically() throws Exception
+    {
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> torn = new AtomicReference<String>();
+        Thread reader = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                while ( !done.get() )
+                {
+                    Configuration.Snapshot snapshot = config.snapshot();
+                    String fixed = snapshot.get( "test", "fixed" ), dynamic = snapshot.get( "test", "dynamic" );
+                    if ( fixed != null && !fixed.equals( dynamic ) ) torn.set( fixed + " != " + dynamic );
+                }
+            }
+        };
+        reader.start();
+        try
+        {
+            for ( int i = 0; i < 1000; i++ )
+            {
+                Map<String, String> values = new HashMap<String, String>();
+                values.put( "fixed", Integer.toString( i ) );
+                values.put( "dynamic", Integer.toString( i ) );
+                Map<String, Map<String, String>> update = new HashMap<String, Map<String, String>>();
+                update.put( "test", values );
+                manager.set( update );
+            }
+        }
+        finally
+        {
+            done.set( true );
+            reader.join();
+        }
+        assertEquals( null, torn.get() );
+    }
+
+    @Test
+    public void shouldRemoveListenersOfCollectedTargets() throws Exception
+    {
+        DynamicTarget kept = config.configure( new DynamicTarget() );
+        WeakReference<DynamicTarget> collected = new WeakReference<DynamicTarget>(
+                config.configure( new DynamicTarget() ) );
+        assertEquals( Integer.valueOf( 2 ), config.listenerCounts().get( "test.dynamic" ) );
+        for ( int i = 0; i < 100 && collected.get() != null; i++ )
+        {
+            System.gc();
+            Thread.sleep( 10 );
+        }
+        assertEquals( null, collected.get() );
+        manager.set( "test", "dynamic", "9" );
+        assertEquals( Integer.valueOf( 1 ), config.listenerCounts().get( "test.dynamic" ) );
+        assertEquals( 9, kept.value );
+    }
+}
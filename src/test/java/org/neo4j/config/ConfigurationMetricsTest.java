@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs in its own surefire execution, with the <code>org.neo4j.config.metrics</code> system property set.
+ */
+public class ConfigurationMetricsTest
+{
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @Before
+    public void metricsEnabled()
+    {
+        assumeTrue( ConfigurationMetrics.ENABLED );
+    }
+
+    @Test
+    public void shouldRegisterTheMetricsOfAConfiguration() throws Exception
+    {
+        TestConfiguration config = new TestConfiguration();
+        ConfigurationMetrics metrics = config.metrics();
+        assertNotNull( metrics );
+        assertTrue( server.isRegistered( metrics.name() ) );
+        config.metrics().unregister();
+        assertFalse( server.isRegistered( metrics.name() ) );
+    }
+
+    @Test
+    public void shouldMeasureConfigureChangeAndRestart() throws Exception
+    {
+        TestConfiguration config = new TestConfiguration();
+        ConfigurationMetricsMXBean metrics = proxy( config );
+        ConfigurationChangeTest.DynamicTarget dynamic = config.configure( new ConfigurationChangeTest.DynamicTarget() );
+        config.configure( new RestartPolicyTest.Server() );
+        ConfigurationChangeTest.Manager manager = new ConfigurationChangeTest.Manager( config );
+
+        assertEquals( 1, metrics.getConfigure().get( ConfigurationChangeTest.DynamicTarget.class.getName() )
+                                .getCount() );
+        assertEquals( 1, metrics.getInitialize().get( "test" ).getCount() );
+        assertEquals( Integer.valueOf( 1 ), metrics.getListeners().get( "test.dynamic" ) );
+        assertEquals( 1, countOf( metrics.getConversions(), ConfigurationChangeTest.Dynamic.class ) );
+
+        manager.set( "test", "dynamic", "5" );
+        manager.set( "server", "port", "8080" );
+
+        assertEquals( 5, dynamic.value );
+        assertEquals( 2, countOf( metrics.getConversions(), ConfigurationChangeTest.Dynamic.class ) );
+        assertEquals( 1, metrics.getChangeDispatch().getCount() );
+        assertEquals( 1, metrics.getRestart().getCount() );
+        config.metrics().unregister();
+    }
+
+    @Test
+    public void shouldCountConversionFailures() throws Exception
+    {
+        TestConfiguration config = new TestConfiguration().set( "test", "dynamic", "five" );
+        ConfigurationMetricsMXBean metrics = proxy( config );
+        try
+        {
+            config.configure( new ConfigurationChangeTest.DynamicTarget() );
+            fail( "expected the conversion to fail" );
+        }
+        catch ( RuntimeException expected )
+        {
+            // the value is not a number
+        }
+        assertEquals( 0, countOf( metrics.getConversions(), ConfigurationChangeTest.Dynamic.class ) );
+        assertEquals( 1, countOf( metrics.getConversionFailures(), ConfigurationChangeTest.Dynamic.class ) );
+        config.metrics().unregister();
+    }
+
+    @Test
+    public void shouldUnregisterTheMetricsOfACollectedConfiguration() throws Exception
+    {
+        ObjectName name = new TestConfiguration().metrics().name();
+        long deadline = System.currentTimeMillis() + 10000;
+        while ( server.isRegistered( name ) && System.currentTimeMillis() < deadline )
+        {
+            System.gc();
+            Thread.sleep( 10 );
+        }
+        assertFalse( server.isRegistered( name ) );
+    }
+
+    private ConfigurationMetricsMXBean proxy( Configuration config )
+    {
+        return JMX.newMXBeanProxy( server, config.metrics().name(), ConfigurationMetricsMXBean.class );
+    }
+
+    private static long countOf( Map<String, Long> counts, Class<?> iface )
+    {
+        long count = 0;
+        for ( Map.Entry<String, Long> entry : counts.entrySet() )
+        {
+            if ( entry.getKey().contains( iface.getName() ) ) count += entry.getValue();
+        }
+        return count;
+    }
+}
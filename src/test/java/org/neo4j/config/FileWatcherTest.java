@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileWatcherTest
+{
+    @Parameter( group = "watched", name = "edited" )
+    public interface Edited
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "0" )
+        MutationPolicy edited( int value );
+    }
+
+    @Parameter( group = "watched", name = "unchanged" )
+    public interface Unchanged
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "0" )
+        MutationPolicy unchanged( int value );
+    }
+
+    static class Target implements Edited, Unchanged
+    {
+        volatile int edited;
+        volatile int unchanged;
+        final AtomicInteger editedCalls = new AtomicInteger();
+        final AtomicInteger unchangedCalls = new AtomicInteger();
+
+        @Override
+        public MutationPolicy edited( int value )
+        {
+            edited = value;
+            editedCalls.incrementAndGet();
+            return MutationPolicy.MUTABLE;
+        }
+
+        @Override
+        public MutationPolicy unchanged( int value )
+        {
+            unchanged = value;
+            unchangedCalls.incrementAndGet();
+            return MutationPolicy.MUTABLE;
+        }
+    }
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private volatile Throwable warning;
+    private FileConfiguration config;
+    private FileWatcher watcher;
+
+    @Before
+    public void startWatching() throws Exception
+    {
+        write( "a.conf", "watched.edited=1\nwatched.unchanged=1\n" );
+        write( "b.conf", "other.value=1\n" );
+        config = new FileConfiguration( folder.getRoot().toPath() )
+        {
+            @Override
+            protected void initialize( String group, Map<String, String> config )
+            {
+                // all values come from the files
+            }
+
+            @Override
+            protected void restart()
+            {
+                // nothing to restart
+            }
+
+            @Override
+            protected void warning( String message, Throwable cause )
+            {
+                warning = cause != null ? cause : new IllegalStateException( message );
+            }
+        };
+        watcher = config.watch();
+    }
+
+    @After
+    public void stopWatching() throws Exception
+    {
+        watcher.close();
+    }
+
+    private Path write( String name, String content ) throws Exception
+    {
+        return Files.write( folder.getRoot().toPath().resolve( name ), content.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private static void awaitEdited( Target target, int value ) throws Exception
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+        while ( target.edited != value && System.currentTimeMillis() < deadline ) Thread.sleep( 10 );
+        assertEquals( value, target.edited );
+    }
+
+    @Test
+    public void shouldUpdateOnlyTheEditedKey() throws Exception
+    {
+        Target target = config.configure( new Target() );
+        assertEquals( 1, target.edited );
+        assertEquals( 1, target.unchanged );
+
+        write( "a.conf", "watched.edited=2\nwatched.unchanged=1\n" );
+
+        awaitEdited( target, 2 );
+        assertEquals( 2, target.editedCalls.get() );
+        assertEquals( 1, target.unchangedCalls.get() );
+        assertEquals( "1", config.snapshot().get( "watched", "unchanged" ) );
+        assertNull( warning );
+    }
+
+    @Test
+    public void shouldNotUpdateKeysOfAFileWrittenWithoutChanges() throws Exception
+    {
+        Target target = config.configure( new Target() );
+
+        write( "a.conf", "watched.edited=1\nwatched.unchanged=1\n" );
+        write( "b.conf", "other.value=1\nwatched.edited=2\n" );
+
+        awaitEdited( target, 2 );
+        assertEquals( 2, target.editedCalls.get() );
+        assertEquals( 1, target.unchangedCalls.get() );
+        assertNull( warning );
+    }
+
+    @Test
+    public void shouldKeepTheValuesOfARemovedFile() throws Exception
+    {
+        Target target = config.configure( new Target() );
+
+        Files.delete( folder.getRoot().toPath().resolve( "a.conf" ) );
+        write( "b.conf", "other.value=1\nwatched.edited=2\n" );
+
+        awaitEdited( target, 2 );
+        assertEquals( 1, target.unchanged );
+        assertEquals( 1, target.unchangedCalls.get() );
+        assertEquals( "1", config.snapshot().get( "watched", "unchanged" ) );
+        assertNull( warning );
+
+        write( "a.conf", "watched.unchanged=3\n" );
+        long deadline = System.currentTimeMillis() + 10000;
+        while ( target.unchanged != 3 && System.currentTimeMillis() < deadline ) Thread.sleep( 10 );
+        assertEquals( 3, target.unchanged );
+        assertEquals( 2, target.editedCalls.get() );
+    }
+}
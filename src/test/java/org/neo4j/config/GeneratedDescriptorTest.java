@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+/**
+ * The configurators created from generated descriptors and by reflection must behave the same.
+ */
+public class GeneratedDescriptorTest
+{
+    @Parameter( group = "test", name = "hex" )
+    public interface Hex
+    {
+        @Parameter.Type( SimpleParameterType.HEX )
+        void hex( int value );
+    }
+
+    @Parameter( group = "test", name = "number" )
+    public interface Number
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "17" )
+        void number( long value );
+    }
+
+    static class Target implements Hex, Number
+    {
+        long value = -1;
+
+        @Override
+        public void hex( int value )
+        {
+            this.value = value;
+        }
+
+        @Override
+        public void number( long value )
+        {
+            this.value = value;
+        }
+    }
+
+    @Test
+    public void shouldUseTheImplicitDefaultWhenNoDefaultIsDeclared() throws Exception
+    {
+        assertEquals( 0, generated( Hex.class ) );
+        assertEquals( 0, reflective( Hex.class ) );
+    }
+
+    @Test
+    public void shouldUseTheDeclaredDefault() throws Exception
+    {
+        assertEquals( 17, generated( Number.class ) );
+        assertEquals( 17, reflective( Number.class ) );
+    }
+
+    private static long generated( Class<?> iface )
+    {
+        ParameterDescriptor descriptor = ParameterDescriptor.generatedFor( iface );
+        assertNotNull( "no descriptor generated for " + iface.getName(), descriptor );
+        return applyDefault( Configuration.Configurator.create( descriptor ) );
+    }
+
+    private static long reflective( Class<?> iface )
+    {
+        Method method = iface.getDeclaredMethods()[0];
+        Parameter param = iface.getAnnotation( Parameter.class );
+        return applyDefault( Configuration.Configurator.create( method, param.group(), param.name() ) );
+    }
+
+    private static long applyDefault( Configuration.Configurator configurator )
+    {
+        Target target = new Target();
+        configurator.configure( new TestConfiguration(), target, configurator.conversionOf( null ), null );
+        return target.value;
+    }
+}
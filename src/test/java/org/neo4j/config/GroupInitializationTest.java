@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class GroupInitializationTest
+{
+    private final ConcurrentMap<String, AtomicInteger> initialized = new ConcurrentHashMap<String, AtomicInteger>();
+    private final Set<Thread> initializers = ConcurrentHashMap.newKeySet();
+    private volatile RuntimeException failure;
+    private volatile boolean recurse;
+    private final TestConfiguration config = new TestConfiguration()
+    {
+        @Override
+        protected void initialize( String group, Map<String, String> config )
+        {
+            initializers.add( Thread.currentThread() );
+            AtomicInteger count = initialized.putIfAbsent( group, new AtomicInteger( 1 ) );
+            if ( count != null ) count.incrementAndGet();
+            RuntimeException failed = failure;
+            failure = null;
+            if ( failed != null ) throw failed;
+            if ( recurse ) snapshot().get( group, "dynamic" );
+            super.initialize( group, config );
+        }
+    }.set( "test", "dynamic", "5" ).set( "other", "value", "1" );
+    private final ExecutorService executor = Executors.newFixedThreadPool( 2 );
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldPrefetchGroupsInTheExecutor() throws Exception
+    {
+        config.prefetch( Arrays.asList( "TEST", "other" ), executor ).get( 10, TimeUnit.SECONDS );
+        assertEquals( 1, initialized.get( "test" ).get() );
+        assertEquals( 1, initialized.get( "other" ).get() );
+        assertFalse( initializers.contains( Thread.currentThread() ) );
+
+        assertEquals( 5, config.configure( new ConfigurationChangeTest.DynamicTarget() ).value );
+        assertEquals( "1", config.snapshot().get( "other", "value" ) );
+        assertEquals( 1, initialized.get( "test" ).get() );
+        assertEquals( 1, initialized.get( "other" ).get() );
+    }
+
+    @Test
+    public void shouldRetryAFailedInitialization() throws Exception
+    {
+        RuntimeException failed = new IllegalStateException( "not available yet" );
+        failure = failed;
+        try
+        {
+            config.configure( new ConfigurationChangeTest.DynamicTarget() );
+            fail( "expected the initialization to fail" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertSame( failed, e );
+        }
+        assertEquals( 5, config.configure( new ConfigurationChangeTest.DynamicTarget() ).value );
+        assertEquals( 2, initialized.get( "test" ).get() );
+    }
+
+    @Test
+    public void shouldFailFastWhenAGroupIsUsedDuringItsOwnInitialization() throws Exception
+    {
+        recurse = true;
+        try
+        {
+            config.configure( new ConfigurationChangeTest.DynamicTarget() );
+            fail( "expected the recursive initialization to fail" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( "Configuration group test used during its own initialization.", e.getMessage() );
+        }
+        recurse = false;
+        assertEquals( 5, config.configure( new ConfigurationChangeTest.DynamicTarget() ).value );
+    }
+}
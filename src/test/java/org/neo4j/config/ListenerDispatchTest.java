@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ListenerDispatchTest
+{
+    private final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    private final List<String> warnings = Collections.synchronizedList( new ArrayList<String>() );
+    private final List<Throwable> causes = Collections.synchronizedList( new ArrayList<Throwable>() );
+    private final TestConfiguration config = new TestConfiguration()
+    {
+        @Override
+        protected ListenerDispatch listenerDispatch()
+        {
+            return ListenerDispatch.asynchronous( executor, 200, TimeUnit.MILLISECONDS );
+        }
+
+        @Override
+        protected void warning( String message, Throwable cause )
+        {
+            warnings.add( message );
+            causes.add( cause );
+        }
+    };
+    private final ConfigurationManager manager = new ConfigurationManager( config )
+    {
+    };
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    private Future<Void> setDynamic( int value )
+    {
+        return manager.update( "test", Collections.singletonMap( "dynamic", Integer.toString( value ) ) );
+    }
+
+    @Test
+    public void shouldApplyChangesToEveryTargetInOrder() throws Exception
+    {
+        List<ConfigurationChangeTest.DynamicTarget> targets = new ArrayList<ConfigurationChangeTest.DynamicTarget>();
+        for ( int i = 0; i < 50; i++ )
+        {
+            targets.add( config.configure( new ConfigurationChangeTest.DynamicTarget() ) );
+        }
+        List<Future<Void>> updates = new ArrayList<Future<Void>>();
+        for ( int value = 2; value <= 10; value++ )
+        {
+            updates.add( setDynamic( value ) );
+        }
+        for ( Future<Void> update : updates )
+        {
+            update.get( 10, TimeUnit.SECONDS );
+        }
+        for ( ConfigurationChangeTest.DynamicTarget target : targets )
+        {
+            assertEquals( 10, target.value );
+        }
+        assertTrue( warnings.isEmpty() );
+    }
+
+    @Test
+    public void shouldReportTargetsThatFailToApplyAChange() throws Exception
+    {
+        final RuntimeException failure = new IllegalArgumentException( "rejected" );
+        ConfigurationChangeTest.DynamicTarget healthy = config.configure( new ConfigurationChangeTest.DynamicTarget() );
+        config.configure( new ConfigurationChangeTest.DynamicTarget()
+        {
+            @Override
+            public MutationPolicy dynamic( int value )
+            {
+                if ( value != 1 ) throw failure;
+                return super.dynamic( value );
+            }
+        } );
+        try
+        {
+            setDynamic( 2 ).get( 10, TimeUnit.SECONDS );
+            fail( "expected the update to fail" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertSame( failure, e.getCause() );
+        }
+        assertEquals( 2, healthy.value );
+        assertEquals( 1, warnings.size() );
+        assertTrue( warnings.get( 0 ), warnings.get( 0 ).endsWith( "failed to apply configuration change" ) );
+        assertSame( failure, causes.get( 0 ) );
+    }
+
+    @Test
+    public void shouldReportTargetsThatAreSlowToApplyAChange() throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        config.configure( new ConfigurationChangeTest.DynamicTarget()
+        {
+            @Override
+            public MutationPolicy dynamic( int value )
+            {
+                if ( value != 1 )
+                {
+                    try
+                    {
+                        release.await( 10, TimeUnit.SECONDS );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.dynamic( value );
+            }
+        } );
+        try
+        {
+            setDynamic( 2 ).get( 10, TimeUnit.SECONDS );
+            fail( "expected the update to time out" );
+        }
+        catch ( ExecutionException e )
+        {
+            assertTrue( e.getCause() instanceof TimeoutException );
+        }
+        finally
+        {
+            release.countDown();
+        }
+        // the future times out before the target is reported as slow
+        for ( long deadline = System.currentTimeMillis() + 10000; warnings.isEmpty(); )
+        {
+            assertTrue( System.currentTimeMillis() < deadline );
+            Thread.sleep( 10 );
+        }
+        assertEquals( 1, warnings.size() );
+        assertTrue( warnings.get( 0 ), warnings.get( 0 ).endsWith( "did not apply configuration change within 200 "
+                                                                   + "milliseconds" ) );
+    }
+}
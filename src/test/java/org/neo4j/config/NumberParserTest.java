@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class NumberParserTest
+{
+    @Test
+    public void shouldCountElementsLikeSplit() throws Exception
+    {
+        assertEquals( 0, NumberParser.elements( null ) );
+        assertEquals( 0, NumberParser.elements( "" ) );
+        assertEquals( 0, NumberParser.elements( "  " ) );
+        assertEquals( 0, NumberParser.elements( "," ) );
+        assertEquals( 1, NumberParser.elements( "1" ) );
+        assertEquals( 2, NumberParser.elements( "1,2" ) );
+        assertEquals( 2, NumberParser.elements( "1,2," ) );
+        assertEquals( 2, NumberParser.elements( "1,2,,, " ) );
+        assertEquals( 3, NumberParser.elements( "1,,2" ) );
+        assertEquals( 2, NumberParser.elements( ",1" ) );
+    }
+
+    @Test
+    public void shouldParseTrimmedRanges() throws Exception
+    {
+        String input = "x 42 ,-7,\t9\n";
+        assertEquals( 42, NumberParser.parseLong( input, 1, 5, 10 ) );
+        assertEquals( -7, NumberParser.parseInt( input, 6, 8, 10 ) );
+        assertEquals( 9, NumberParser.parseShort( input, 9, input.length(), 10 ) );
+    }
+
+    @Test
+    public void shouldParseHexadecimalWithOptionalPrefix() throws Exception
+    {
+        assertEquals( 255, NumberParser.parseInt( "ff", 0, 2, 16 ) );
+        assertEquals( 255, NumberParser.parseInt( "0xff", 0, 4, 16 ) );
+        assertEquals( -16, NumberParser.parseInt( "-0x10", 0, 5, 16 ) );
+        assertEquals( 0, NumberParser.parseLong( "0x0", 0, 3, 16 ) );
+    }
+
+    @Test
+    public void shouldParseExtremeValues() throws Exception
+    {
+        assertEquals( Long.MIN_VALUE, parseLong( Long.toString( Long.MIN_VALUE ) ) );
+        assertEquals( Long.MAX_VALUE, parseLong( Long.toString( Long.MAX_VALUE ) ) );
+        assertEquals( Byte.MIN_VALUE, NumberParser.parseByte( "-128", 0, 4, 10 ) );
+    }
+
+    @Test
+    public void shouldRejectWhatTheJdkRejects() throws Exception
+    {
+        for ( String invalid : new String[] { "", " ", "-", "+", "1a", "9223372036854775808", "--1", "0x" } )
+        {
+            try
+            {
+                parseLong( invalid );
+                fail( "parsed '" + invalid + "'" );
+            }
+            catch ( NumberFormatException expected )
+            {
+                // expected
+            }
+        }
+        try
+        {
+            NumberParser.parseByte( "128", 0, 3, 10 );
+            fail( "parsed a byte out of range" );
+        }
+        catch ( NumberFormatException expected )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldParseBooleansIgnoringCase() throws Exception
+    {
+        assertTrue( NumberParser.parseBoolean( " TRUE ", 0, 6 ) );
+        assertTrue( NumberParser.parseBoolean( "true", 0, 4 ) );
+        assertFalse( NumberParser.parseBoolean( "yes", 0, 3 ) );
+        assertFalse( NumberParser.parseBoolean( "truer", 0, 5 ) );
+    }
+
+    @Test
+    public void shouldIgnoreTrailingCommaInPrimitiveArray() throws Exception
+    {
+        Object[] converted = convert( "1,2,", long[].class, null );
+        assertArrayEquals( new long[] { 1, 2 }, (long[]) converted[0] );
+    }
+
+    @Test
+    public void shouldIgnoreTrailingCommaInStringArray() throws Exception
+    {
+        Object[] converted = convert( "a,b,", String[].class, null );
+        assertArrayEquals( new String[] { "a", "b" }, (String[]) converted[0] );
+    }
+
+    @Test
+    public void shouldIgnoreTrailingCommaInList() throws Exception
+    {
+        assertEquals( Arrays.asList( "a", "b" ), convert( "a,b,", List.class, String.class )[0] );
+        assertEquals( Arrays.asList( 1L, 2L ), convert( "1, 2 ,", List.class, Long.class )[0] );
+    }
+
+    @Test
+    public void shouldIgnoreTrailingCommaInLazyList() throws Exception
+    {
+        Class<?>[] params = { List.class };
+        SimpleParameterType.Conversion lazy = SimpleParameterType.lazy(
+                SimpleParameterType.lookupConversion( params, Long.class ), params );
+        assertEquals( Arrays.asList( 1L, 2L ), lazy.performOn( "1,2,", params )[0] );
+    }
+
+    @Test
+    public void shouldKeepEmptyElementsInTheMiddle() throws Exception
+    {
+        assertEquals( Arrays.asList( "a", "", "b" ), convert( "a,,b", List.class, String.class )[0] );
+    }
+
+    private static long parseLong( String input )
+    {
+        return NumberParser.parseLong( input, 0, input.length(), 10 );
+    }
+
+    private static Object[] convert( String input, Class<?> type, Class<?> element )
+    {
+        Class<?>[] params = { type };
+        return SimpleParameterType.lookupConversion( params, element ).performOn( input, params );
+    }
+}
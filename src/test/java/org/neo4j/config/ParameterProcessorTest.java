@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParameterProcessorTest
+{
+    @Rule
+    public TemporaryFolder dir = new TemporaryFolder();
+
+    @Test
+    public void shouldKeepDescriptorsOfPreviousCompilations() throws Exception
+    {
+        File out = dir.newFolder( "classes" );
+        compile( out, source( "First", "@org.neo4j.config.Parameter( group = \"test\", name = \"first\" ) "
+                                       + "public interface First { void first( String value ); }" ) );
+        compile( out, source( "Second", "@org.neo4j.config.Parameter( group = \"test\", name = \"second\" ) "
+                                        + "public interface Second { void second( String value ); }" ) );
+        assertEquals( Arrays.asList( "scratch.First$$Configurator", "scratch.Second$$Configurator" ),
+                      Files.readAllLines( new File( out, "META-INF/services/" + ParameterDescriptor.class.getName() )
+                              .toPath(), StandardCharsets.UTF_8 ) );
+    }
+
+    @Test
+    public void shouldIgnoreAnnotatedClassesLikeTheConfigurationDoes() throws Exception
+    {
+        File out = dir.newFolder( "classes" );
+        compile( out, source( "NotAnInterface", "@org.neo4j.config.Parameter( group = \"test\" ) "
+                                                + "public class NotAnInterface {}" ) );
+        assertTrue( new File( out, "scratch/NotAnInterface.class" ).isFile() );
+        assertFalse( new File( out, "scratch/NotAnInterface$$Configurator.class" ).exists() );
+    }
+
+    private File source( String name, String content ) throws IOException
+    {
+        File file = new File( dir.newFolder( name ), name + ".java" );
+        Files.write( file.toPath(), ( "package scratch; " + content ).getBytes( StandardCharsets.UTF_8 ) );
+        return file;
+    }
+
+    private static void compile( File out, File source )
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> args = Arrays.asList( "-classpath", System.getProperty( "java.class.path" ), "-processor",
+                                           ParameterProcessor.class.getName(), "-d", out.getPath(),
+                                           source.getPath() );
+        assertEquals( "compilation of " + source.getName() + " failed", 0,
+                      compiler.run( null, null, null, args.toArray( new String[args.size()] ) ) );
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class RestartPolicyTest
+{
+    @Parameter( group = "server", name = "port" )
+    public interface Port
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "7474" )
+        MutationPolicy port( int value );
+    }
+
+    static class Server implements Port
+    {
+        int value;
+
+        @Override
+        public MutationPolicy port( int value )
+        {
+            this.value = value;
+            return MutationPolicy.MUTABLE_ON_RESTART;
+        }
+    }
+
+    static class Monitor implements Port
+    {
+        volatile int value;
+
+        @Override
+        public MutationPolicy port( int value )
+        {
+            this.value = value;
+            return MutationPolicy.MUTABLE;
+        }
+    }
+
+    private volatile RestartPolicy policy = RestartPolicy.quietPeriod( 1, TimeUnit.HOURS );
+    private volatile RuntimeException failure;
+    private volatile String portDuringRestart;
+    private final CountDownLatch restarted = new CountDownLatch( 1 );
+    private final CountDownLatch warned = new CountDownLatch( 1 );
+    private volatile Throwable warning;
+    private final TestConfiguration config = new TestConfiguration()
+    {
+        @Override
+        protected RestartPolicy restartPolicy()
+        {
+            return policy;
+        }
+
+        @Override
+        protected void restart( List<String> scopes )
+        {
+            RuntimeException failed = failure;
+            failure = null;
+            if ( failed != null ) throw failed;
+            portDuringRestart = snapshot().get( "server", "port" );
+            super.restart( scopes );
+            restarted.countDown();
+        }
+
+        @Override
+        protected void warning( String message, Throwable cause )
+        {
+            warning = cause;
+            warned.countDown();
+        }
+    };
+    private final ConfigurationManager manager = new ConfigurationManager( config )
+    {
+    };
+
+    private void setPort( String port ) throws Exception
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put( "port", port );
+        manager.update( "server", values ).get();
+    }
+
+    @Test
+    public void shouldCoalesceChangesIntoOneRestart() throws Exception
+    {
+        config.configure( new Server() );
+        setPort( "1" );
+        setPort( "2" );
+        setPort( "3" );
+        assertTrue( config.restarts.isEmpty() );
+        assertEquals( Collections.singletonMap( "server", Collections.singletonMap( "port", "3" ) ),
+                      config.pendingRestart() );
+        assertEquals( Arrays.asList( "server" ), config.pendingRestartScopes() );
+
+        config.restartNow();
+        config.restartNow();
+
+        assertEquals( Collections.singletonList( Arrays.asList( "server" ) ), config.restarts );
+        assertTrue( config.pendingRestart().isEmpty() );
+    }
+
+    @Test
+    public void shouldKeepStagedValuesOutOfTheSnapshotUntilTheRestart() throws Exception
+    {
+        Monitor monitor = config.configure( new Monitor() );
+        config.configure( new Server() );
+        setPort( "8080" );
+        assertEquals( null, config.snapshot().get( "server", "port" ) );
+        assertEquals( 7474, config.configure( new Server() ).value );
+        assertEquals( 7474, monitor.value );
+
+        config.restartNow();
+
+        assertEquals( "8080", portDuringRestart );
+        assertEquals( 8080, config.configure( new Server() ).value );
+        assertEquals( 8080, monitor.value );
+    }
+
+    @Test
+    public void shouldKeepChangesPendingWhenTheRestartFails() throws Exception
+    {
+        Monitor monitor = config.configure( new Monitor() );
+        config.configure( new Server() );
+        setPort( "8080" );
+        RuntimeException failed = new IllegalStateException( "restart failed" );
+        failure = failed;
+        try
+        {
+            config.restartNow();
+            fail( "expected the restart to fail" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertSame( failed, e );
+        }
+        assertEquals( Collections.singletonMap( "server", Collections.singletonMap( "port", "8080" ) ),
+                      config.pendingRestart() );
+        assertEquals( Arrays.asList( "server" ), config.pendingRestartScopes() );
+        assertEquals( null, config.snapshot().get( "server", "port" ) );
+        assertEquals( 7474, config.configure( new Server() ).value );
+        assertEquals( 7474, monitor.value );
+
+        config.restartNow();
+
+        assertEquals( Collections.singletonList( Arrays.asList( "server" ) ), config.restarts );
+        assertTrue( config.pendingRestart().isEmpty() );
+        assertEquals( "8080", config.snapshot().get( "server", "port" ) );
+        assertEquals( 8080, monitor.value );
+    }
+
+    @Test
+    public void shouldRestartAfterTheQuietPeriod() throws Exception
+    {
+        policy = RestartPolicy.quietPeriod( 20, TimeUnit.MILLISECONDS );
+        config.configure( new Server() );
+        setPort( "1" );
+        setPort( "2" );
+        assertTrue( restarted.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( "2", portDuringRestart );
+        assertTrue( config.pendingRestart().isEmpty() );
+    }
+
+    @Test
+    public void shouldRestartChangesMadeWhileAnImmediateScheduledRestartRuns() throws Exception
+    {
+        policy = RestartPolicy.quietPeriod( 0, TimeUnit.MILLISECONDS );
+        config.configure( new Server() );
+        Thread[] threads = new Thread[4];
+        final AtomicReference<Throwable> failed = new AtomicReference<Throwable>();
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            final int thread = i;
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for ( int port = 0; port < 500; port++ ) setPort( thread + "" + port );
+                    }
+                    catch ( Throwable e )
+                    {
+                        failed.set( e );
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for ( Thread thread : threads ) thread.join();
+        assertEquals( null, failed.get() );
+        long deadline = System.currentTimeMillis() + 10000;
+        while ( !config.pendingRestart().isEmpty() && System.currentTimeMillis() < deadline ) Thread.sleep( 10 );
+        assertTrue( config.pendingRestart().isEmpty() );
+    }
+
+    @Test
+    public void shouldReportAFailedScheduledRestart() throws Exception
+    {
+        policy = RestartPolicy.quietPeriod( 20, TimeUnit.MILLISECONDS );
+        config.configure( new Server() );
+        RuntimeException failed = new IllegalStateException( "restart failed" );
+        failure = failed;
+        setPort( "8080" );
+        assertTrue( warned.await( 10, TimeUnit.SECONDS ) );
+        assertSame( failed, warning );
+        assertEquals( Collections.singletonMap( "server", Collections.singletonMap( "port", "8080" ) ),
+                      config.pendingRestart() );
+    }
+
+    @Test
+    public void shouldApplyMutableChangesWhenAnImmediateRestartFails() throws Exception
+    {
+        policy = RestartPolicy.IMMEDIATE;
+        config.configure( new Server() );
+        ConfigurationChangeTest.DynamicTarget dynamic = config.configure( new ConfigurationChangeTest.DynamicTarget() );
+        RuntimeException failed = new IllegalStateException( "restart failed" );
+        failure = failed;
+        Map<String, Map<String, String>> update = new HashMap<String, Map<String, String>>();
+        update.put( "server", Collections.singletonMap( "port", "8080" ) );
+        update.put( "test", Collections.singletonMap( "dynamic", "5" ) );
+        try
+        {
+            manager.update( update );
+            fail( "expected the restart to fail" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertSame( failed, e );
+        }
+        assertEquals( 5, dynamic.value );
+        assertEquals( Collections.singletonMap( "server", Collections.singletonMap( "port", "8080" ) ),
+                      config.pendingRestart() );
+    }
+
+    @Test
+    public void shouldRestartAsPartOfTheUpdateByDefault() throws Exception
+    {
+        policy = RestartPolicy.IMMEDIATE;
+        config.configure( new Server() );
+        setPort( "8080" );
+        assertEquals( 1, config.restarts.size() );
+        assertEquals( "8080", config.snapshot().get( "server", "port" ) );
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class RestartScopesTest
+{
+    @Parameter.RestartScope( "storage" )
+    interface Storage
+    {
+    }
+
+    @Parameter.RestartScope( value = "index", dependsOn = "storage" )
+    interface Index
+    {
+    }
+
+    @Parameter.RestartScope( value = "query", dependsOn = { "index", "cache" } )
+    interface Query
+    {
+    }
+
+    interface Cache
+    {
+    }
+
+    @Parameter.RestartScope( value = "self", dependsOn = "self" )
+    interface Self
+    {
+    }
+
+    @Parameter.RestartScope( value = "first", dependsOn = "second" )
+    interface First
+    {
+    }
+
+    @Parameter.RestartScope( value = "second", dependsOn = "first" )
+    interface Second
+    {
+    }
+
+    @Parameter( group = "store", name = "path" )
+    @Parameter.RestartScope( "storage" )
+    public interface StorePath
+    {
+        @Parameter.Type( value = SimpleParameterType.STRING, defaultValue = "data" )
+        MutationPolicy path( String value );
+    }
+
+    @Parameter( group = "lucene", name = "analyzer" )
+    @Parameter.RestartScope( value = "index", dependsOn = "storage" )
+    public interface Analyzer
+    {
+        @Parameter.Type( value = SimpleParameterType.STRING, defaultValue = "standard" )
+        MutationPolicy analyzer( String value );
+    }
+
+    static class OnRestart implements StorePath, Analyzer
+    {
+        @Override
+        public MutationPolicy path( String value )
+        {
+            return MutationPolicy.MUTABLE_ON_RESTART;
+        }
+
+        @Override
+        public MutationPolicy analyzer( String value )
+        {
+            return MutationPolicy.MUTABLE_ON_RESTART;
+        }
+    }
+
+    private final RestartScopes scopes = new RestartScopes();
+
+    @Test
+    public void shouldUseTheGroupAsTheDefaultScope() throws Exception
+    {
+        assertEquals( "cache", scopes.declare( Cache.class, "cache" ) );
+        assertEquals( "storage", scopes.declare( Storage.class, "store" ) );
+    }
+
+    @Test
+    public void shouldRestartOnlyTheAffectedScopeWithoutDependents() throws Exception
+    {
+        scopes.declare( Storage.class, "store" );
+        scopes.declare( Cache.class, "cache" );
+        assertEquals( Arrays.asList( "cache" ), scopes.restartOrder( Collections.singleton( "cache" ) ) );
+    }
+
+    @Test
+    public void shouldRestartTheScopesThatDependOnTheAffectedScopesAfterThem() throws Exception
+    {
+        scopes.declare( Query.class, "query" );
+        scopes.declare( Index.class, "lucene" );
+        scopes.declare( Storage.class, "store" );
+        scopes.declare( Cache.class, "cache" );
+        assertEquals( Arrays.asList( "storage", "index", "query" ),
+                      scopes.restartOrder( Collections.singleton( "storage" ) ) );
+        assertEquals( Arrays.asList( "cache", "query" ), scopes.restartOrder( Collections.singleton( "cache" ) ) );
+        assertEquals( Arrays.asList( "cache", "index", "query" ),
+                      scopes.restartOrder( Arrays.asList( "index", "cache" ) ) );
+    }
+
+    @Test
+    public void shouldRejectAScopeThatDependsOnItself() throws Exception
+    {
+        try
+        {
+            scopes.declare( Self.class, "self" );
+            fail( "expected the self dependency to be rejected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertEquals( "Restart scope self of " + Self.class.getName() + " depends on itself.", e.getMessage() );
+        }
+    }
+
+    @Test
+    public void shouldDetectCyclicDependencies() throws Exception
+    {
+        scopes.declare( First.class, "first" );
+        scopes.declare( Second.class, "second" );
+        try
+        {
+            scopes.restartOrder( Collections.singleton( "first" ) );
+            fail( "expected the cycle to be detected" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( "Cyclic restart scope dependencies: [first, second] -> first", e.getMessage() );
+        }
+    }
+
+    @Test
+    public void shouldRestartTheDependentScopesOfAChangedParameterInOrder() throws Exception
+    {
+        TestConfiguration config = new TestConfiguration();
+        config.configure( new OnRestart() );
+        ConfigurationChangeTest.Manager manager = new ConfigurationChangeTest.Manager( config );
+
+        manager.set( "store", "path", "other" );
+        manager.set( "lucene", "analyzer", "simple" );
+
+        assertEquals( Arrays.asList( Arrays.asList( "storage", "index" ), Arrays.asList( "index" ) ),
+                      config.restarts );
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SnapshotFileTest
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, Map<String, String>> values()
+    {
+        Map<String, Map<String, String>> values = new HashMap<String, Map<String, String>>();
+        Map<String, String> server = new HashMap<String, String>();
+        server.put( "port", "7474" );
+        server.put( "name", "gr\u00e5f\u00e9" );
+        server.put( "empty", "" );
+        values.put( "server", server );
+        values.put( "cache", Collections.singletonMap( "size", "1000" ) );
+        return values;
+    }
+
+    private static byte[] digest( int seed )
+    {
+        byte[] digest = new byte[32];
+        Arrays.fill( digest, (byte) seed );
+        return digest;
+    }
+
+    private Path write( String name, String content ) throws Exception
+    {
+        return Files.write( new File( folder.getRoot(), name ).toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    @Test
+    public void shouldReadTheValuesItWrote() throws Exception
+    {
+        Path snapshot = new File( folder.getRoot(), "snapshot" ).toPath();
+        SnapshotFile.write( snapshot, digest( 42 ), values() );
+        assertEquals( values(), SnapshotFile.read( snapshot, digest( 42 ) ) );
+    }
+
+    @Test
+    public void shouldIgnoreAMissingSnapshot() throws Exception
+    {
+        assertNull( SnapshotFile.read( new File( folder.getRoot(), "missing" ).toPath(), digest( 42 ) ) );
+    }
+
+    @Test
+    public void shouldIgnoreAStaleSnapshot() throws Exception
+    {
+        Path snapshot = new File( folder.getRoot(), "snapshot" ).toPath();
+        SnapshotFile.write( snapshot, digest( 42 ), values() );
+        assertNull( SnapshotFile.read( snapshot, digest( 43 ) ) );
+    }
+
+    @Test
+    public void shouldIgnoreACorruptSnapshot() throws Exception
+    {
+        Path snapshot = new File( folder.getRoot(), "snapshot" ).toPath();
+        SnapshotFile.write( snapshot, digest( 42 ), values() );
+        byte[] content = Files.readAllBytes( snapshot );
+        for ( int i = 0; i < content.length; i++ )
+        {
+            byte[] corrupt = content.clone();
+            corrupt[i] ^= 0x10;
+            Files.write( snapshot, corrupt );
+            assertNull( "corrupt byte " + i, SnapshotFile.read( snapshot, digest( 42 ) ) );
+        }
+    }
+
+    @Test
+    public void shouldIgnoreATruncatedSnapshot() throws Exception
+    {
+        Path snapshot = new File( folder.getRoot(), "snapshot" ).toPath();
+        SnapshotFile.write( snapshot, digest( 42 ), values() );
+        byte[] content = Files.readAllBytes( snapshot );
+        Files.write( snapshot, Arrays.copyOf( content, content.length - 3 ) );
+        assertNull( SnapshotFile.read( snapshot, digest( 42 ) ) );
+    }
+
+    @Test
+    public void shouldChangeTheChecksumWhenAFileChanges() throws Exception
+    {
+        Path file = write( "neo4j.conf", "server.port=7474\n" );
+        byte[] before = SnapshotFile.checksum( Collections.singletonList( file ) );
+        write( "neo4j.conf", "server.port=7475\n" );
+        assertFalse( Arrays.equals( before, SnapshotFile.checksum( Collections.singletonList( file ) ) ) );
+    }
+
+    @Test
+    public void shouldChangeTheChecksumWhenContentMovesBetweenFiles() throws Exception
+    {
+        List<Path> files = Arrays.asList( write( "a.conf", "server.port=7474\n" ), write( "b.conf", "" ) );
+        byte[] before = SnapshotFile.checksum( files );
+        write( "a.conf", "server.port=7474" );
+        write( "b.conf", "\n" );
+        assertFalse( Arrays.equals( before, SnapshotFile.checksum( files ) ) );
+    }
+
+    @Test
+    public void shouldLoadTheSnapshotOfUnchangedFiles() throws Exception
+    {
+        write( "neo4j.conf", "server.port=7474\n" );
+        Path snapshot = new File( folder.newFolder( "cache" ), "snapshot" ).toPath();
+        TestConfiguration first = new TestConfiguration( ConfigurationSource.snapshot( folder.getRoot().toPath(),
+                                                                                      snapshot ) );
+        assertEquals( "7474", first.snapshot().get( "server", "port" ) );
+        assertTrue( Files.exists( snapshot ) );
+
+        byte[] checksum = SnapshotFile.checksum( ConfigurationSource.configurationFiles( folder.getRoot().toPath() ) );
+        SnapshotFile.write( snapshot, checksum, Collections.singletonMap( "server",
+                                                                          Collections.singletonMap( "port", "1" ) ) );
+        TestConfiguration second = new TestConfiguration( ConfigurationSource.snapshot( folder.getRoot().toPath(),
+                                                                                       snapshot ) );
+        assertEquals( "1", second.snapshot().get( "server", "port" ) );
+    }
+
+    @Test
+    public void shouldWarnAboutProblemsThatDoNotPreventLoading() throws Exception
+    {
+        write( "neo4j.conf", "server.port=7474\nnogroup=1\n" );
+        final List<String> warnings = new ArrayList<String>();
+        Configuration config = new Configuration( ConfigurationSource.snapshot(
+                folder.getRoot().toPath(), new File( folder.getRoot(), "missing/snapshot" ).toPath() ) )
+        {
+            @Override
+            protected void warning( String message, Throwable cause )
+            {
+                warnings.add( message );
+            }
+
+            @Override
+            protected void restart()
+            {
+            }
+        };
+        assertEquals( "7474", config.snapshot().get( "server", "port" ) );
+        assertEquals( 2, warnings.size() );
+        assertTrue( warnings.get( 0 ), warnings.get( 0 ).startsWith( "ignoring configuration key without group" ) );
+        assertTrue( warnings.get( 1 ), warnings.get( 1 ).startsWith( "could not write configuration snapshot" ) );
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class SupplierParameterTest
+{
+    @Parameter( group = "test", name = "ports" )
+    public interface Ports
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "1,2" )
+        MutationPolicy ports( Supplier<long[]> value );
+    }
+
+    static class PortsTarget implements Ports
+    {
+        Supplier<long[]> value;
+
+        @Override
+        public MutationPolicy ports( Supplier<long[]> value )
+        {
+            this.value = value;
+            return MutationPolicy.IMMUTABLE;
+        }
+    }
+
+    @Test
+    public void shouldSupplyEveryTargetWithItsOwnArray() throws Exception
+    {
+        TestConfiguration config = new TestConfiguration();
+        PortsTarget first = config.configure( new PortsTarget() );
+        PortsTarget second = config.configure( new PortsTarget() );
+
+        long[] ports = first.value.get();
+        ports[0] = 17;
+
+        assertArrayEquals( new long[] { 1, 2 }, second.value.get() );
+        assertArrayEquals( new long[] { 1, 2 }, first.value.get() );
+        assertNotSame( first.value.get(), first.value.get() );
+    }
+
+    @Test
+    public void shouldSupplyTheConfiguredValue() throws Exception
+    {
+        TestConfiguration config = new TestConfiguration().set( "test", "ports", "7474,7687" );
+        assertArrayEquals( new long[] { 7474, 7687 }, config.configure( new PortsTarget() ).value.get() );
+    }
+}
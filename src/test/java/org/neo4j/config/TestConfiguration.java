@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A configuration with values given up front, that records its restarts.
+ */
+class TestConfiguration extends Configuration
+{
+    final Map<String, Map<String, String>> values = new HashMap<String, Map<String, String>>();
+    final List<List<String>> restarts = new ArrayList<List<String>>();
+
+    TestConfiguration()
+    {
+    }
+
+    TestConfiguration( ConfigurationSource source )
+    {
+        super( source );
+    }
+
+    TestConfiguration set( String group, String name, String value )
+    {
+        Map<String, String> groupValues = values.get( group );
+        if ( groupValues == null ) values.put( group, groupValues = new HashMap<String, String>() );
+        groupValues.put( name, value );
+        return this;
+    }
+
+    @Override
+    protected void initialize( String group, Map<String, String> config )
+    {
+        Map<String, String> groupValues = values.get( group );
+        if ( groupValues != null ) config.putAll( groupValues );
+    }
+
+    @Override
+    protected void restart()
+    {
+        restarts.add( null );
+    }
+
+    @Override
+    protected void restart( List<String> scopes )
+    {
+        restarts.add( scopes );
+    }
+}
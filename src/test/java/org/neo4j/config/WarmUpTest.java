@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2002-2011 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class WarmUpTest
+{
+    @Parameter( group = "warmup", name = "address" )
+    public interface Address
+    {
+        @Parameter.Type( SimpleParameterType.HOST_AND_PORT )
+        MutationPolicy address( String host, int port );
+    }
+
+    @Parameter( group = "warmup", name = "location" )
+    public interface Location
+    {
+        @Parameter.Type( SimpleParameterType.URI )
+        MutationPolicy location( URI location );
+    }
+
+    @Parameter( group = "warmup", name = "count" )
+    public interface Count
+    {
+        @Parameter.Type( value = SimpleParameterType.NUMBER, defaultValue = "3" )
+        MutationPolicy count( int count );
+    }
+
+    @Parameter( group = "warmup" )
+    public interface Getters
+    {
+        long count();
+    }
+
+    static class AddressTarget implements Address
+    {
+        String host;
+        int port;
+
+        @Override
+        public MutationPolicy address( String host, int port )
+        {
+            this.host = host;
+            this.port = port;
+            return MutationPolicy.IMMUTABLE;
+        }
+    }
+
+    @Test
+    public void shouldAcceptParametersWithoutDefaultThatHaveAValue()
+    {
+        TestConfiguration config = new TestConfiguration().set( "warmup", "address", "db.example.com:7687" )
+                .set( "warmup", "location", "http://example.com/db" );
+        config.warmUp( Arrays.<Class<?>>asList( Address.class, Location.class, Count.class ),
+                       ForkJoinPool.commonPool() );
+        AddressTarget target = config.configure( new AddressTarget() );
+        assertEquals( "db.example.com", target.host );
+        assertEquals( 7687, target.port );
+    }
+
+    @Test
+    public void shouldValidateGetterStyleInterfaces()
+    {
+        TestConfiguration config = new TestConfiguration().set( "warmup", "count", "5" );
+        config.warmUp( Collections.<Class<?>>singletonList( Getters.class ), ForkJoinPool.commonPool() );
+        assertEquals( 5, config.bind( Getters.class ).count() );
+    }
+
+    @Test
+    public void shouldReportParametersWithoutValueOrDefault()
+    {
+        TestConfiguration config = new TestConfiguration().set( "warmup", "location", "http://example.com/db" );
+        try
+        {
+            config.warmUp( Arrays.<Class<?>>asList( Address.class, Location.class ), ForkJoinPool.commonPool() );
+            fail( "expected the address to be invalid" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( "1 of 2 configuration interfaces are invalid.", e.getMessage() );
+            assertEquals( 1, e.getSuppressed().length );
+            assertTrue( e.getSuppressed()[0].getMessage(),
+                        e.getSuppressed()[0].getMessage().contains( Address.class.getName() ) );
+        }
+    }
+
+    @Test
+    public void shouldReportInvalidValues()
+    {
+        TestConfiguration config = new TestConfiguration().set( "warmup", "count", "many" );
+        try
+        {
+            config.warmUp( Collections.<Class<?>>singletonList( Count.class ), ForkJoinPool.commonPool() );
+            fail( "expected the count to be invalid" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertEquals( 1, e.getSuppressed().length );
+        }
+    }
+}
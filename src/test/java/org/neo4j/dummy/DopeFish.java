@@ -73,6 +73,7 @@ class DopeFish
 
     private final String name;
     private final Configurator manager;
+    private final MutableConfig mutable;
     private final int age;
     private boolean reconfigured;
 
@@ -82,7 +83,8 @@ class DopeFish
         ImmutableConfig config = configuration.configure( new ImmutableConfig() );
         this.name = config.name;
         this.age = config.age;
-        configuration.configure( new MutableConfig() );
+        // mutable targets are weakly referenced by the configuration, keep it alive for as long as it is used
+        this.mutable = configuration.configure( new MutableConfig() );
         this.manager = new Configurator( configuration );
     }
 